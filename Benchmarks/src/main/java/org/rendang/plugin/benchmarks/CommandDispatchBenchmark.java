@@ -0,0 +1,112 @@
+package org.rendang.plugin.benchmarks;
+
+import org.bukkit.command.CommandSender;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rendang.plugin.core.commands.RendangBukkitCommand;
+import org.rendang.plugin.core.commands.RendangCommand;
+import org.rendang.plugin.core.commands.annotation.Arg;
+import org.rendang.plugin.core.commands.annotation.AutoComplete;
+import org.rendang.plugin.core.commands.annotation.CommandExecute;
+import org.rendang.plugin.core.commands.event.CommandEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RendangBukkitCommand#onCommand} and {@link RendangBukkitCommand#onTabComplete} from the console
+ * sender of a MockBukkit server, for a handler without arguments, one with typed arguments and a completer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandDispatchBenchmark {
+
+    private RendangBukkitCommand command;
+    private CommandSender sender;
+    private final String[] pingArgs = {"ping"};
+    private final String[] giveArgs = {"give", "Notch", "64"};
+    private final String[] nestedArgs = {"admin", "user", "info", "Notch"};
+    private final String[] completeArgs = {"give", "pla"};
+
+    @Setup
+    public void setUp() {
+        sender = MockBukkit.mock().getConsoleSender();
+        command = new RendangBukkitCommand(new BenchCommand());
+    }
+
+    @TearDown
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public boolean commandWithoutArguments() {
+        return command.onCommand(sender, command, "bench", pingArgs);
+    }
+
+    @Benchmark
+    public boolean commandWithTypedArguments() {
+        return command.onCommand(sender, command, "bench", giveArgs);
+    }
+
+    @Benchmark
+    public boolean nestedSubcommand() {
+        return command.onCommand(sender, command, "bench", nestedArgs);
+    }
+
+    @Benchmark
+    public List<String> tabComplete() {
+        return command.onTabComplete(sender, command, "bench", completeArgs);
+    }
+
+    public static class BenchCommand implements RendangCommand {
+
+        private final List<String> players = new ArrayList<>();
+
+        public BenchCommand() {
+            for (int i = 0; i < 100; i++) {
+                players.add((i % 2 == 0 ? "player" : "Builder") + i);
+            }
+        }
+
+        @Override
+        public String getCommandName() {
+            return "bench";
+        }
+
+        @CommandExecute(command = "ping", description = "Ping")
+        public boolean ping(CommandEvent event) {
+            return true;
+        }
+
+        @CommandExecute(command = "give", permission = "bench.give", description = "Give items")
+        public boolean give(CommandEvent event, @Arg("player") String player, @Arg(value = "amount", min = 1, max = 64) int amount) {
+            return player.length() + amount > 0;
+        }
+
+        @CommandExecute(command = "admin user info", permission = "bench.admin", description = "User info")
+        public boolean info(CommandEvent event, @Arg("player") String player) {
+            return true;
+        }
+
+        @AutoComplete(command = "give")
+        public List<String> giveCompleter(CommandEvent event) {
+            return players;
+        }
+    }
+}
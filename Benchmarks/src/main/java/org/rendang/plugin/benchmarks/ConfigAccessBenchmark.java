@@ -0,0 +1,78 @@
+package org.rendang.plugin.benchmarks;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rendang.plugin.core.config.RendangConfig;
+import org.rendang.plugin.core.config.RendangConfigRecord;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RendangConfig#get} on shallow and deeply nested paths, against reading the same path from the
+ * Bukkit {@link FileConfiguration} as plugins did before the resolved snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigAccessBenchmark {
+
+    public static final RendangConfigRecord<String> SHALLOW = new RendangConfigRecord<>("name", "bench");
+    public static final RendangConfigRecord<Integer> DEEP = new RendangConfigRecord<>("worlds.survival.spawn.protection.radius", 16);
+    public static final RendangConfigRecord<Double> DEEPER = new RendangConfigRecord<>("economy.currencies.gold.exchange.rates.silver.buy", 2.5);
+
+    private RendangConfig config;
+    private FileConfiguration bukkitConfig;
+
+    @Setup
+    public void setUp() {
+        MockBukkit.mock();
+        Plugin plugin = MockBukkit.createMockPlugin();
+        config = new RendangConfig(plugin, ConfigAccessBenchmark.class);
+        bukkitConfig = config.getConfiguration();
+    }
+
+    @TearDown
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public String shallow() {
+        return config.get(SHALLOW);
+    }
+
+    @Benchmark
+    public Integer deep() {
+        return config.get(DEEP);
+    }
+
+    @Benchmark
+    public Double deeper() {
+        return config.get(DEEPER);
+    }
+
+    @Benchmark
+    public int deepFromFileConfiguration() {
+        return bukkitConfig.getInt(DEEP.path, DEEP.defaultValue);
+    }
+
+    @Benchmark
+    public double deeperFromFileConfiguration() {
+        return bukkitConfig.getDouble(DEEPER.path, DEEPER.defaultValue);
+    }
+}
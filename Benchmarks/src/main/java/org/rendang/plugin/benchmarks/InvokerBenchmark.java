@@ -0,0 +1,63 @@
+package org.rendang.plugin.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rendang.plugin.core.commands.event.CommandEvent;
+import org.rendang.plugin.core.commands.invoker.CommandInvoker;
+import org.rendang.plugin.core.commands.invoker.InvokerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calling a command handler through {@code Method.invoke}, as dispatch worked before handlers were
+ * compiled, against the {@link CommandInvoker} built by {@link InvokerFactory} and a direct call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokerBenchmark {
+
+    private final Handler handler = new Handler();
+    private final CommandEvent event = new CommandEvent(null, null, "bench", new String[]{"ping"});
+    private Method method;
+    private CommandInvoker invoker;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        method = Handler.class.getMethod("ping", CommandEvent.class);
+        invoker = InvokerFactory.command(handler, method);
+    }
+
+    @Benchmark
+    public boolean methodInvoke() throws ReflectiveOperationException {
+        return (boolean) method.invoke(handler, event);
+    }
+
+    @Benchmark
+    public boolean compiledInvoker() throws Exception {
+        return invoker.invoke(event);
+    }
+
+    @Benchmark
+    public boolean directCall() {
+        return handler.ping(event);
+    }
+
+    public static class Handler {
+        public boolean ping(CommandEvent event) {
+            return event.getArgs().length == 1;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.rendang.plugin.benchmarks;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rendang.plugin.core.messages.RendangMessage;
+import org.rendang.plugin.core.messages.RendangMessageRecord;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RendangMessage#parse} and {@link RendangMessage#parseComponent} for messages with 0, 3 and 10 params.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageParseBenchmark {
+
+    @Param({"0", "3", "10"})
+    public int params;
+
+    private RendangMessage<BenchMessage> messages;
+    private BenchMessage message;
+    private Object[] values;
+
+    @Setup
+    public void setUp() {
+        messages = new RendangMessage<>(new YamlConfiguration(), BenchMessage.class);
+        message = switch (params) {
+            case 0 -> BenchMessage.NO_PARAMS;
+            case 3 -> BenchMessage.THREE_PARAMS;
+            default -> BenchMessage.TEN_PARAMS;
+        };
+        values = new Object[params];
+        for (int i = 0; i < params; i++) {
+            values[i] = i % 2 == 0 ? "Steve" + i : i * 1000;
+        }
+    }
+
+    @Benchmark
+    public String parse() {
+        return messages.parse(message, values);
+    }
+
+    @Benchmark
+    public Component parseComponent() {
+        return messages.parseComponent(message, values);
+    }
+
+    public enum BenchMessage implements RendangMessageRecord {
+        NO_PARAMS("bench.none", "<green>Welcome to the server, enjoy your stay!"),
+        THREE_PARAMS("bench.three", "<green><%> paid <%> coins to <%>.", "sender", "amount", "receiver"),
+        TEN_PARAMS("bench.ten", "<gray><%> <%> <%> <%> <%> | <%> <%> <%> <%> <%>",
+                "p0", "p1", "p2", "p3", "p4", "p5", "p6", "p7", "p8", "p9");
+
+        private final String path;
+        private final String message;
+        private final String[] params;
+
+        BenchMessage(String path, String message, String... params) {
+            this.path = path;
+            this.message = message;
+            this.params = params;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public String getMessageTemplate() {
+            return message;
+        }
+
+        @Override
+        public String[] getParams() {
+            return params;
+        }
+    }
+}
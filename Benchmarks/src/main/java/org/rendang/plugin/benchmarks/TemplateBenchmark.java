@@ -0,0 +1,47 @@
+package org.rendang.plugin.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rendang.plugin.core.messages.MessageTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Substituting three params with one {@code String.replaceAll} per param, as messages were rendered
+ * before templates were compiled, against rendering a precompiled {@link MessageTemplate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+    private static final String SOURCE = "&a%sender% paid %amount% coins to %receiver%.";
+    private static final String[] PARAMS = {"sender", "amount", "receiver"};
+
+    private final MessageTemplate template = MessageTemplate.compile(SOURCE, PARAMS);
+    private final Object[] values = {"Steve", 2500, "Alex"};
+
+    @Benchmark
+    public String replaceAll() {
+        String message = SOURCE;
+        for (int i = 0; i < PARAMS.length; i++) {
+            message = message.replaceAll("%" + PARAMS[i] + "%", String.valueOf(values[i]));
+        }
+        return message;
+    }
+
+    @Benchmark
+    public String messageTemplate() {
+        return template.render(values);
+    }
+}
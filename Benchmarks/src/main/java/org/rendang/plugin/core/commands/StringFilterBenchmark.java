@@ -0,0 +1,55 @@
+package org.rendang.plugin.core.commands;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RendangBukkitCommand#stringFilter} on large candidate lists, with a prefix matching about half
+ * of the candidates and one matching none. Lives in the command package to reach the package-private filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringFilterBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int candidates;
+
+    private RendangBukkitCommand command;
+    private List<String> strings;
+
+    @Setup
+    public void setUp() {
+        command = new RendangBukkitCommand(() -> "bench");
+        strings = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            strings.add((i % 2 == 0 ? "Player" : "builder") + i);
+        }
+    }
+
+    @Benchmark
+    public List<String> halfMatching() {
+        return command.stringFilter(strings, "pla");
+    }
+
+    @Benchmark
+    public List<String> noneMatching() {
+        return command.stringFilter(strings, "zzz");
+    }
+}
@@ -0,0 +1,34 @@
+package org.rendang.plugin.core;
+
+import org.rendang.plugin.core.config.RendangConfigRecord;
+import org.rendang.plugin.core.messages.RendangMessageRecord;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Changes applied after a file in the data folder was edited, published to {@link FileChangeListener}s
+ * once file watching is enabled with {@link RendangPlugin#enableFileWatching()}.
+ *
+ * @param file           The edited file
+ * @param configChanges  Config records whose value changed, empty unless the file is {@code config.yml}
+ * @param messageChanges Messages whose template changed, empty unless the file is the messages file
+ * @param translation    Whether the file is a translation file, whose locales are reloaded on next use
+ */
+public record FileChangeEvent(Path file, List<RendangConfigRecord<?>> configChanges,
+                              List<? extends RendangMessageRecord> messageChanges, boolean translation) {
+
+    /**
+     * @return whether the config record is among the changed ones
+     */
+    public boolean changed(RendangConfigRecord<?> configRecord) {
+        return configChanges.contains(configRecord);
+    }
+
+    /**
+     * @return whether the message is among the changed ones
+     */
+    public boolean changed(RendangMessageRecord messageRecord) {
+        return messageChanges.contains(messageRecord);
+    }
+}
@@ -0,0 +1,10 @@
+package org.rendang.plugin.core;
+
+/**
+ * Receives the changes applied by file watching, on the main thread (global region on Folia).
+ */
+@FunctionalInterface
+public interface FileChangeListener {
+
+    void onFileChange(FileChangeEvent event);
+}
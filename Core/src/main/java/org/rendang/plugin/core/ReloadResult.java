@@ -0,0 +1,73 @@
+package org.rendang.plugin.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of {@link RendangPlugin#reloadAsync()}.
+ * <p>
+ * Timings are measured with {@link System#nanoTime()}. When the reload failed the previous
+ * config and messages stay active and {@link #getError()} holds the cause.
+ * </p>
+ */
+public final class ReloadResult {
+
+    private final long configNanos;
+    private final long messagesNanos;
+    private final long applyDelayNanos;
+    private final long totalNanos;
+    private final Throwable error;
+
+    ReloadResult(long configNanos, long messagesNanos, long applyDelayNanos, long totalNanos, Throwable error) {
+        this.configNanos = configNanos;
+        this.messagesNanos = messagesNanos;
+        this.applyDelayNanos = applyDelayNanos;
+        this.totalNanos = totalNanos;
+        this.error = error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return time spent creating the config off the main thread
+     */
+    public long getConfigTime(TimeUnit unit) {
+        return unit.convert(configNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return time spent creating the messages off the main thread
+     */
+    public long getMessagesTime(TimeUnit unit) {
+        return unit.convert(messagesNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return time between the async load finishing and the new state being published on the main thread
+     */
+    public long getApplyDelay(TimeUnit unit) {
+        return unit.convert(applyDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return time from the reload request until it completed
+     */
+    public long getTotalTime(TimeUnit unit) {
+        return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "ReloadResult{success=" + isSuccess()
+                + ", config=" + getConfigTime(TimeUnit.MILLISECONDS) + "ms"
+                + ", messages=" + getMessagesTime(TimeUnit.MILLISECONDS) + "ms"
+                + ", applyDelay=" + getApplyDelay(TimeUnit.MILLISECONDS) + "ms"
+                + ", total=" + getTotalTime(TimeUnit.MILLISECONDS) + "ms"
+                + (error == null ? "" : ", error=" + error) + "}";
+    }
+}
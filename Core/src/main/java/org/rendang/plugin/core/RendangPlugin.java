@@ -1,17 +1,50 @@
 package org.rendang.plugin.core;
 
+import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.rendang.plugin.core.commands.RendangCommand;
+import org.rendang.plugin.core.commands.AsyncCompletionListener;
 import org.rendang.plugin.core.commands.RendangBukkitCommand;
+import org.rendang.plugin.core.commands.limit.CommandLimiter;
 import org.rendang.plugin.core.messages.RendangMessage;
 import org.rendang.plugin.core.config.RendangConfig;
+import org.rendang.plugin.core.config.RendangConfigRecord;
+import org.rendang.plugin.core.data.PlayerDataStorage;
+import org.rendang.plugin.core.data.PlayerDataStore;
+import org.rendang.plugin.core.io.FileWatcher;
+import org.rendang.plugin.core.messages.RendangMessageRecord;
 import org.rendang.plugin.core.scheduler.RendangScheduler;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
 public abstract class RendangPlugin< C extends RendangConfig, M extends RendangMessage<?>> extends JavaPlugin {
 
-    private C config;
-    private M messages;
+    private volatile Loaded<C, M> loaded = new Loaded<>(null, null);
+    private CompletableFuture<ReloadResult> pendingReload;
     private RendangScheduler scheduler;
+    private final List<RendangBukkitCommand> commands = new ArrayList<>();
+    private final CommandLimiter commandLimiter = new CommandLimiter(this::getPluginConfig);
+    private final AsyncCompletionListener asyncCompletions = new AsyncCompletionListener();
+    private final List<FileChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private FileWatcher fileWatcher;
+    private PlayerDataStore playerData;
+    private boolean metricsCommand;
+    private boolean profilerCommand;
 
     abstract public C onCreateConfig();
     abstract public M onCreateMessages();
@@ -19,29 +52,378 @@ public abstract class RendangPlugin< C extends RendangConfig, M extends RendangM
     @Override
     public void onEnable() {
         super.onEnable();
-        scheduler = new RendangScheduler(this);
+        scheduler = createScheduler();
+        getServer().getPluginManager().registerEvents(asyncCompletions, this);
+        getServer().getPluginManager().registerEvents(commandLimiter, this);
         reload();
     }
 
+    @Override
+    public void onDisable() {
+        disableFileWatching();
+        unregister(new ArrayList<>(commands), false);
+        if (playerData != null) {
+            playerData.close();
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        super.onDisable();
+    }
+
+    /**
+     * Creates the scheduler used by the plugin. Override to configure the async executor limits.
+     */
+    protected RendangScheduler createScheduler() {
+        return new RendangScheduler(this);
+    }
+
     public void reload(){
-        config = onCreateConfig();
-        messages = onCreateMessages();
+        C config = onCreateConfig();
+        M messages = onCreateMessages();
+        loaded = new Loaded<>(config, messages);
+        commandLimiter.refresh();
+    }
+
+    /**
+     * Reloads the config and messages without blocking the calling thread.
+     * <p>
+     * {@link #onCreateConfig()} and {@link #onCreateMessages()} run on the async scheduler, then the
+     * new instances are published together on the main thread (global region on Folia), so readers
+     * see either the old pair or the new pair. The config is parsed into its own configuration, which
+     * {@link #getConfig()} only returns once the pair is published. If a reload is already running its
+     * future is returned.
+     * </p>
+     *
+     * @return a future completed on the main thread once the new state is active or the reload failed
+     */
+    public synchronized CompletableFuture<ReloadResult> reloadAsync(){
+        if (pendingReload != null && !pendingReload.isDone()) {
+            return pendingReload;
+        }
+        CompletableFuture<ReloadResult> future = new CompletableFuture<>();
+        pendingReload = future;
+        long start = System.nanoTime();
+        Runnable reload = () -> {
+            long configStart = System.nanoTime();
+            C config;
+            M messages;
+            long configNanos = 0;
+            long messagesNanos = 0;
+            try {
+                config = onCreateConfig();
+                configNanos = System.nanoTime() - configStart;
+                long messagesStart = System.nanoTime();
+                messages = onCreateMessages();
+                messagesNanos = System.nanoTime() - messagesStart;
+            } catch (Throwable throwable) {
+                getLogger().log(Level.SEVERE, "Failed to reload " + getName(), throwable);
+                ReloadResult failed = new ReloadResult(configNanos, messagesNanos, 0, System.nanoTime() - start, throwable);
+                completeOnMainThread(future, () -> future.complete(failed));
+                return;
+            }
+            long loadedAt = System.nanoTime();
+            long finalConfigNanos = configNanos;
+            long finalMessagesNanos = messagesNanos;
+            completeOnMainThread(future, () -> {
+                loaded = new Loaded<>(config, messages);
+                commandLimiter.refresh();
+                long now = System.nanoTime();
+                future.complete(new ReloadResult(finalConfigNanos, finalMessagesNanos, now - loadedAt, now - start, null));
+            });
+        };
+        try {
+            scheduler.runTaskAsynchronously(reload);
+        } catch (Throwable throwable) {
+            future.completeExceptionally(throwable);
+        }
+        return future;
+    }
+
+    /**
+     * Runs the completion on the main thread, or fails the future right away if the task cannot be
+     * scheduled, for example while the plugin disables, so a pending reload never hangs.
+     */
+    private void completeOnMainThread(CompletableFuture<?> future, Runnable completion){
+        try {
+            scheduler.runTask(completion);
+        } catch (Throwable throwable) {
+            future.completeExceptionally(throwable);
+        }
+    }
+
+    /**
+     * Watches the data folder and applies edits to {@code config.yml} and the messages file while the
+     * server runs, without a full reload.
+     * <p>
+     * Saves are debounced, then only the edited file is parsed, off the main thread. Its values are
+     * compared with the active ones by record path and only changed config values and message templates
+     * are replaced, after which a {@link FileChangeEvent} listing them is sent to the listeners added
+     * with {@link #addFileChangeListener(FileChangeListener)} on the main thread. Edits to translation
+     * files drop the cached translations. Files written by the plugin itself produce no changes.
+     * </p>
+     */
+    public synchronized void enableFileWatching(){
+        if (fileWatcher != null) return;
+        try {
+            fileWatcher = FileWatcher.start(getDataFolder().toPath(), 300, TimeUnit.MILLISECONDS, this::applyFileChange, getLogger());
+        } catch (IOException e) {
+            getLogger().log(Level.SEVERE, "Could not watch " + getDataFolder() + " for changes", e);
+        }
+    }
+
+    public synchronized void disableFileWatching(){
+        if (fileWatcher == null) return;
+        fileWatcher.close();
+        fileWatcher = null;
+    }
+
+    public void addFileChangeListener(FileChangeListener listener){
+        changeListeners.add(listener);
+    }
+
+    public void removeFileChangeListener(FileChangeListener listener){
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Applies one edited file to the active config or messages. The new values are published on the
+     * watcher thread; the Bukkit configurations and the listeners are updated on the main thread.
+     */
+    private void applyFileChange(Path path){
+        Loaded<C, M> current = loaded;
+        String fileName = path.getFileName().toString();
+        FileChangeEvent event = null;
+        Runnable store = null;
+        if (fileName.equals("config.yml") && current.config() != null) {
+            YamlConfiguration file = YamlConfiguration.loadConfiguration(path.toFile());
+            List<RendangConfigRecord<?>> changed = current.config().apply(file);
+            if (!changed.isEmpty()) {
+                event = new FileChangeEvent(path, changed, List.of(), false);
+                store = () -> {
+                    current.config().store(file, changed);
+                    commandLimiter.refresh();
+                };
+            }
+        } else if (current.messages() != null) {
+            File messagesFile = current.messages().getFile();
+            if (messagesFile != null && messagesFile.toPath().toAbsolutePath().normalize().equals(path)) {
+                List<? extends RendangMessageRecord> changed = current.messages().apply(YamlConfiguration.loadConfiguration(path.toFile()));
+                if (!changed.isEmpty()) {
+                    event = new FileChangeEvent(path, List.of(), changed, false);
+                    RendangMessage<?> messages = current.messages();
+                    store = () -> storeMessages(messages, changed);
+                }
+            } else if (current.messages().reloadTranslation(fileName)) {
+                event = new FileChangeEvent(path, List.of(), List.of(), true);
+            }
+        }
+        if (event == null) return;
+        getLogger().info("Applied changes from " + fileName);
+        FileChangeEvent published = event;
+        Runnable storeChanges = store;
+        scheduler.runTask(() -> {
+            if (storeChanges != null) storeChanges.run();
+            for (FileChangeListener listener : changeListeners) {
+                try {
+                    listener.onFileChange(published);
+                } catch (Throwable throwable) {
+                    getLogger().log(Level.SEVERE, "File change listener threw an exception", throwable);
+                }
+            }
+        });
+    }
+
+    /**
+     * @param changed The messages returned by {@link RendangMessage#apply} of the same messages
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Enum<T> & RendangMessageRecord> void storeMessages(RendangMessage<T> messages, List<? extends RendangMessageRecord> changed){
+        messages.store((List<T>) changed);
+    }
+
+    /**
+     * Caches the {@link org.rendang.plugin.core.data.PlayerDataRecord}s declared on the classes for every
+     * online player and writes changes behind to the storage. Data of players already online, after a
+     * plugin reload, is loaded right away. The store is flushed and closed when the plugin disables.
+     *
+     * @param storage For example {@code JdbcStorage.sqlite(new File(getDataFolder(), "players.db"))}
+     */
+    public synchronized PlayerDataStore enablePlayerData(PlayerDataStorage storage, Class<?>... recordTypeClasses){
+        if (playerData != null) {
+            throw new IllegalStateException("Player data is already enabled");
+        }
+        PlayerDataStore store = new PlayerDataStore(scheduler, storage, recordTypeClasses);
+        getServer().getPluginManager().registerEvents(store, this);
+        for (Player player : getServer().getOnlinePlayers()) {
+            store.join(player.getUniqueId());
+        }
+        playerData = store;
+        return store;
+    }
+
+    /**
+     * @return the player data store, or null if {@link #enablePlayerData} was not called
+     */
+    public PlayerDataStore getPlayerData(){
+        return playerData;
+    }
+
+    /**
+     * @return the configuration of the active {@link RendangConfig}, which is only replaced together with
+     * it when a reload is published, or the Bukkit default before the first load
+     */
+    @Override
+    public FileConfiguration getConfig(){
+        C config = loaded.config();
+        return config != null ? config.getConfiguration() : super.getConfig();
     }
 
     public C getPluginConfig(){
-        return config;
+        return loaded.config();
     }
 
     public M getPluginMessages(){
-        return messages;
+        return loaded.messages();
     }
 
     public RendangScheduler getScheduler() {
         return scheduler;
     }
 
-    public void registerCommand(RendangCommand rendangCommand){
-        getServer().getCommandMap().register(getName().toLowerCase(), new RendangBukkitCommand(rendangCommand));
+    /**
+     * @return the rate limiter applied to every command registered by this plugin, configured by
+     * {@link org.rendang.plugin.core.commands.limit.CommandLimitConfig}
+     */
+    public CommandLimiter getCommandLimiter() {
+        return commandLimiter;
+    }
+
+    /**
+     * Adds the {@code metrics} subcommand to the commands this plugin registers afterwards. It is
+     * guarded by the permission {@code <plugin>.command.metrics}, named after this plugin in lower case.
+     */
+    public synchronized void enableMetricsCommand(){
+        metricsCommand = true;
+    }
+
+    /**
+     * Adds the {@code profiler} subcommand to the commands this plugin registers afterwards. It is
+     * guarded by the permission {@code <plugin>.command.profiler}, named after this plugin in lower case.
+     */
+    public synchronized void enableProfilerCommand(){
+        profilerCommand = true;
+    }
+
+    /**
+     * @return the registered command, which also exposes its handler metrics
+     */
+    public RendangBukkitCommand registerCommand(RendangCommand rendangCommand){
+        return registerCommands(List.of(rendangCommand)).get(0);
+    }
+
+    /**
+     * Registers several commands at once. Every command is scanned and compiled before any is added
+     * to the command map, so a broken handler registers nothing, and online players receive a
+     * single command tree update afterwards.
+     *
+     * @return the registered commands, in the given order
+     */
+    public synchronized List<RendangBukkitCommand> registerCommands(Collection<? extends RendangCommand> rendangCommands){
+        List<RendangBukkitCommand> compiled = new ArrayList<>(rendangCommands.size());
+        for (RendangCommand rendangCommand : rendangCommands) {
+            compiled.add(compile(rendangCommand));
+        }
+        getServer().getCommandMap().registerAll(getName().toLowerCase(), new ArrayList<Command>(compiled));
+        for (RendangBukkitCommand command : compiled) {
+            asyncCompletions.register(getName().toLowerCase(), command);
+        }
+        commands.addAll(compiled);
+        syncCommands();
+        return compiled;
+    }
+
+    /**
+     * Registers commands as native Brigadier commands instead of legacy Bukkit commands. Clients then
+     * parse subcommands and typed arguments and suggest literals, numbers and booleans locally.
+     * <p>
+     * Must be called from {@code onEnable}. The trees are registered, and rebuilt after a data pack
+     * reload, through Paper's {@code COMMANDS} lifecycle event, so these commands cannot be removed
+     * with {@link #unregisterCommand(RendangBukkitCommand)}.
+     * </p>
+     *
+     * @return the compiled commands, in the given order
+     */
+    public synchronized List<RendangBukkitCommand> registerBrigadierCommands(Collection<? extends RendangCommand> rendangCommands){
+        List<RendangBukkitCommand> compiled = new ArrayList<>(rendangCommands.size());
+        for (RendangCommand rendangCommand : rendangCommands) {
+            compiled.add(compile(rendangCommand));
+        }
+        getLifecycleManager().registerEventHandler(LifecycleEvents.COMMANDS, event -> {
+            for (RendangBukkitCommand command : compiled) {
+                event.registrar().register(command.toBrigadier(), command.getDescription(), command.getAliases());
+            }
+        });
+        return compiled;
+    }
+
+    private RendangBukkitCommand compile(RendangCommand rendangCommand){
+        RendangBukkitCommand command = new RendangBukkitCommand(rendangCommand, scheduler);
+        command.setLimiter(commandLimiter);
+        if (metricsCommand) {
+            command.enableMetricsCommand(getName().toLowerCase(Locale.ROOT) + ".command.metrics");
+        }
+        if (profilerCommand) {
+            command.enableProfilerCommand(getName().toLowerCase(Locale.ROOT) + ".command.profiler");
+        }
+        return command;
+    }
+
+    /**
+     * Removes a command registered by this plugin from the command map, including its aliases and
+     * prefixed label, and updates the command tree of online players.
+     */
+    public synchronized void unregisterCommand(RendangBukkitCommand command){
+        unregister(List.of(command), true);
+    }
+
+    /**
+     * Removes every command registered by this plugin, for example before registering a new set on reload.
+     * Called without the client update when the plugin disables.
+     */
+    public synchronized void unregisterAll(){
+        unregister(new ArrayList<>(commands), true);
+    }
+
+    /**
+     * @return the commands registered by this plugin
+     */
+    public synchronized List<RendangBukkitCommand> getRegisteredCommands(){
+        return List.copyOf(commands);
+    }
+
+    private synchronized void unregister(List<RendangBukkitCommand> removed, boolean sync){
+        if (removed.isEmpty()) return;
+        CommandMap commandMap = getServer().getCommandMap();
+        for (RendangBukkitCommand command : removed) {
+            commandMap.getKnownCommands().values().removeIf(known -> known == command);
+            command.unregister(commandMap);
+            asyncCompletions.unregister(getName().toLowerCase(), command);
+            commands.remove(command);
+        }
+        if (sync) syncCommands();
+    }
+
+    /**
+     * Sends the current command tree to every online player, on the thread owning the player.
+     */
+    private void syncCommands(){
+        for (Player player : getServer().getOnlinePlayers()) {
+            scheduler.runAtEntity(player, player::updateCommands, null);
+        }
+    }
+
+    private record Loaded<C, M>(C config, M messages) {
     }
 
 }
@@ -0,0 +1,68 @@
+package org.rendang.plugin.core.commands;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers Paper's {@link AsyncTabCompleteEvent} for commands whose completer returns a
+ * {@code CompletableFuture}, so their suggestions are computed off the main thread.
+ * <p>
+ * The event is fired on the network thread before the server falls back to the synchronous
+ * {@code tabComplete}; waiting for the future here never blocks a tick. Completions of every
+ * other command are left to the regular path.
+ * </p>
+ */
+public final class AsyncCompletionListener implements Listener {
+
+    private final Map<String, RendangBukkitCommand> commands = new ConcurrentHashMap<>();
+
+    /**
+     * Routes the command's name, aliases and {@code prefix:name} labels to it.
+     */
+    public void register(String prefix, RendangBukkitCommand command) {
+        for (String label : labels(prefix, command)) {
+            commands.put(label, command);
+        }
+    }
+
+    public void unregister(String prefix, RendangBukkitCommand command) {
+        for (String label : labels(prefix, command)) {
+            commands.remove(label, command);
+        }
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onAsyncTabComplete(AsyncTabCompleteEvent event) {
+        if (event.isHandled() || !event.isCommand() || !event.isAsynchronous()) return;
+        String buffer = event.getBuffer();
+        if (buffer.startsWith("/")) buffer = buffer.substring(1);
+        int space = buffer.indexOf(' ');
+        if (space < 0) return;
+        String label = buffer.substring(0, space);
+        RendangBukkitCommand command = commands.get(label.toLowerCase(Locale.ROOT));
+        if (command == null) return;
+        String[] args = buffer.substring(space + 1).split(" ", -1);
+        if (!command.hasAsyncCompletion(args)) return;
+        event.setCompletions(command.tabCompleteAsync(event.getSender(), label, args).join());
+        event.setHandled(true);
+    }
+
+    private static String[] labels(String prefix, RendangBukkitCommand command) {
+        String name = command.getName().toLowerCase(Locale.ROOT);
+        String[] labels = new String[command.getAliases().size() * 2 + 2];
+        int i = 0;
+        labels[i++] = name;
+        labels[i++] = prefix + ":" + name;
+        for (String alias : command.getAliases()) {
+            String lower = alias.toLowerCase(Locale.ROOT);
+            labels[i++] = lower;
+            labels[i++] = prefix + ":" + lower;
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,198 @@
+package org.rendang.plugin.core.commands;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.DoubleArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.LongArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.context.ParsedCommandNode;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import org.rendang.plugin.core.commands.argument.CommandArguments;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Compiles a {@link RendangBukkitCommand} into a Paper Brigadier tree, so clients parse and suggest
+ * subcommands and typed arguments locally.
+ * <p>
+ * Subcommands become literals. Typed parameters use native argument types: integers, longs and
+ * doubles keep their {@link org.rendang.plugin.core.commands.annotation.Arg} range, booleans are
+ * {@code bool}, greedy strings are {@code greedyString} and every other type is a single word.
+ * Handlers without typed parameters get one word per {@code usages} token, the last one greedy, and
+ * no arguments at all when they declare no usage.
+ * Only arguments whose values come from the server (players, worlds, enums, {@code AutoComplete}
+ * methods) ask the server for suggestions. Subcommands are hidden from senders who can neither run
+ * them nor see any subcommand below them.
+ * </p>
+ * <p>
+ * Execution still goes through {@link RendangBukkitCommand#execute}, so parsing, permissions,
+ * threading and metrics behave exactly as with the legacy command.
+ * </p>
+ */
+final class BrigadierTree {
+
+    private BrigadierTree() {
+    }
+
+    static LiteralCommandNode<CommandSourceStack> compile(RendangBukkitCommand command) {
+        Command<CommandSourceStack> run = run(command);
+        SuggestionProvider<CommandSourceStack> suggestions = suggestions(command);
+        LiteralArgumentBuilder<CommandSourceStack> literal = Commands.literal(command.getName().toLowerCase(Locale.ROOT));
+        literal.executes(run);
+        attach(literal, command.root, run, suggestions);
+        return literal.build();
+    }
+
+    private static void attach(ArgumentBuilder<CommandSourceStack, ?> parent, CommandNode node,
+                               Command<CommandSourceStack> run, SuggestionProvider<CommandSourceStack> suggestions) {
+        for (CommandNode child : node.children()) {
+            LiteralArgumentBuilder<CommandSourceStack> literal = Commands.literal(child.name.toLowerCase(Locale.ROOT));
+            Predicate<CommandSourceStack> requirement = requirement(child);
+            if (requirement != null) literal.requires(requirement);
+            RendangBukkitCommand.Execution execution = child.execution;
+            if (execution != null) {
+                arguments(literal, execution, child.completion != null, run, suggestions);
+            }
+            attach(literal, child, run, suggestions);
+            parent.then(literal);
+        }
+    }
+
+    /**
+     * A node is visible if the sender may run it or may see any of its children, so groups stay
+     * visible as long as one subcommand below them is usable.
+     *
+     * @return the visibility check of the node, or null if every sender can see it
+     */
+    private static Predicate<CommandSourceStack> requirement(CommandNode node) {
+        RendangBukkitCommand.Execution execution = node.execution;
+        if (execution != null && execution.permission.isEmpty()) return null;
+        List<Predicate<CommandSourceStack>> any = new ArrayList<>();
+        if (execution != null) {
+            String permission = execution.permission;
+            any.add(source -> source.getSender().hasPermission(permission));
+        }
+        for (CommandNode child : node.children()) {
+            Predicate<CommandSourceStack> requirement = requirement(child);
+            if (requirement == null) return null;
+            any.add(requirement);
+        }
+        if (any.isEmpty()) return null;
+        if (any.size() == 1) return any.get(0);
+        return source -> {
+            for (Predicate<CommandSourceStack> requirement : any) {
+                if (requirement.test(source)) return true;
+            }
+            return false;
+        };
+    }
+
+    private static void arguments(LiteralArgumentBuilder<CommandSourceStack> literal, RendangBukkitCommand.Execution execution,
+                                  boolean completed, Command<CommandSourceStack> run, SuggestionProvider<CommandSourceStack> suggestions) {
+        List<Spec> specs = execution.arguments != null ? typed(execution.arguments) : untyped(execution.usage);
+        ArgumentBuilder<CommandSourceStack, ?> next = null;
+        boolean restOptional = true;
+        for (int i = specs.size() - 1; i >= 0; i--) {
+            Spec spec = specs.get(i);
+            RequiredArgumentBuilder<CommandSourceStack, ?> argument = Commands.argument(spec.name, spec.type);
+            if (completed || spec.serverSuggestions) argument.suggests(suggestions);
+            if (next != null) argument.then(next);
+            if (restOptional) argument.executes(run);
+            restOptional &= spec.optional;
+            next = argument;
+        }
+        if (next != null) literal.then(next);
+        if (restOptional) literal.executes(run);
+    }
+
+    private static List<Spec> typed(CommandArguments arguments) {
+        List<Spec> specs = new ArrayList<>();
+        for (CommandArguments.ArgumentInfo info : arguments.getArguments()) {
+            Class<?> type = info.type();
+            double min = info.min();
+            double max = info.max();
+            ArgumentType<?> argumentType;
+            boolean serverSuggestions = false;
+            if (type == int.class || type == Integer.class) {
+                argumentType = IntegerArgumentType.integer(
+                        Double.isInfinite(min) ? Integer.MIN_VALUE : (int) Math.ceil(min),
+                        Double.isInfinite(max) ? Integer.MAX_VALUE : (int) Math.floor(max));
+            } else if (type == long.class || type == Long.class) {
+                argumentType = LongArgumentType.longArg(
+                        Double.isInfinite(min) ? Long.MIN_VALUE : (long) Math.ceil(min),
+                        Double.isInfinite(max) ? Long.MAX_VALUE : (long) Math.floor(max));
+            } else if (type == double.class || type == Double.class) {
+                argumentType = DoubleArgumentType.doubleArg(Math.max(min, -Double.MAX_VALUE), Math.min(max, Double.MAX_VALUE));
+            } else if (type == boolean.class || type == Boolean.class) {
+                argumentType = BoolArgumentType.bool();
+            } else if (info.greedy()) {
+                argumentType = StringArgumentType.greedyString();
+            } else {
+                argumentType = StringArgumentType.word();
+                serverSuggestions = type != String.class;
+            }
+            specs.add(new Spec(info.name(), argumentType, info.optional(), serverSuggestions));
+        }
+        return specs;
+    }
+
+    private static List<Spec> untyped(String usage) {
+        List<Spec> specs = new ArrayList<>();
+        String trimmed = usage.trim();
+        if (trimmed.isEmpty()) return specs;
+        String[] tokens = trimmed.split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            boolean optional = token.startsWith("[");
+            String name = token.replaceAll("[<>\\[\\]]|\\.\\.\\.", "");
+            ArgumentType<?> type = i == tokens.length - 1 ? StringArgumentType.greedyString() : StringArgumentType.word();
+            specs.add(new Spec(name.isEmpty() ? "arg" + i : name, type, optional, false));
+        }
+        return specs;
+    }
+
+    private static Command<CommandSourceStack> run(RendangBukkitCommand command) {
+        return context -> {
+            // The range starts at this command's literal even when it runs behind a redirect such as /execute
+            String[] split = split(context.getRange().get(context.getInput()));
+            command.execute(context.getSource().getSender(), split[0], Arrays.copyOfRange(split, 1, split.length));
+            return Command.SINGLE_SUCCESS;
+        };
+    }
+
+    private static SuggestionProvider<CommandSourceStack> suggestions(RendangBukkitCommand command) {
+        return (context, builder) -> {
+            String input = builder.getInput();
+            List<ParsedCommandNode<CommandSourceStack>> nodes = context.getLastChild().getNodes();
+            String[] split = split(nodes.isEmpty() ? input : input.substring(nodes.get(0).getRange().getStart()));
+            SuggestionsBuilder offset = builder.createOffset(input.lastIndexOf(' ') + 1);
+            return command.tabCompleteAsync(context.getSource().getSender(), split[0], Arrays.copyOfRange(split, 1, split.length))
+                    .thenApply(result -> {
+                        for (String suggestion : result) {
+                            offset.suggest(suggestion);
+                        }
+                        return offset.build();
+                    });
+        };
+    }
+
+    private static String[] split(String input) {
+        return (input.startsWith("/") ? input.substring(1) : input).split(" ", -1);
+    }
+
+    private record Spec(String name, ArgumentType<?> type, boolean optional, boolean serverSuggestions) {
+    }
+}
@@ -0,0 +1,129 @@
+package org.rendang.plugin.core.commands;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Immutable node of the subcommand tree built by {@link RendangBukkitCommand}.
+ * <p>
+ * Every node stores its children sorted by their lowercase key, so a child lookup is a binary search
+ * and prefix completion is a contiguous range of the sorted keys. Both compare case-insensitively
+ * against the precomputed keys, which avoids lowercasing the argument or the candidates per request.
+ * A subcommand declared as {@code "group sub"} becomes the path {@code group -> sub}.
+ * </p>
+ */
+final class CommandNode {
+
+    private static final CommandNode[] NO_CHILDREN = new CommandNode[0];
+    private static final String[] NO_KEYS = new String[0];
+
+    final String name;
+    final RendangBukkitCommand.Execution execution;
+    final RendangBukkitCommand.Execution completion;
+    private final String[] keys;
+    private final String[] names;
+    private final CommandNode[] children;
+
+    private CommandNode(String name, RendangBukkitCommand.Execution execution, RendangBukkitCommand.Execution completion,
+                        CommandNode[] children) {
+        this.name = name;
+        this.execution = execution;
+        this.completion = completion;
+        this.children = children;
+        this.keys = children.length == 0 ? NO_KEYS : new String[children.length];
+        this.names = children.length == 0 ? NO_KEYS : new String[children.length];
+        for (int i = 0; i < children.length; i++) {
+            this.keys[i] = children[i].name.toLowerCase(Locale.ROOT);
+            this.names[i] = children[i].name;
+        }
+    }
+
+    /**
+     * @return the child whose name equals the argument ignoring case, or null
+     */
+    CommandNode child(String argument) {
+        int index = search(argument);
+        return index >= 0 ? children[index] : null;
+    }
+
+    /**
+     * @return the children of this node in key order
+     */
+    CommandNode[] children() {
+        return children;
+    }
+
+    /**
+     * Adds the names of all children starting with the prefix, ignoring case, to the output.
+     */
+    void complete(String prefix, Collection<String> out) {
+        int index = search(prefix);
+        int from = index >= 0 ? index : -index - 1;
+        int length = prefix.length();
+        for (int i = from; i < keys.length && keys[i].regionMatches(true, 0, prefix, 0, length); i++) {
+            out.add(names[i]);
+        }
+    }
+
+    private int search(String argument) {
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compare = String.CASE_INSENSITIVE_ORDER.compare(keys[mid], argument);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    static Builder builder() {
+        return new Builder("");
+    }
+
+    static final class Builder {
+        private final String name;
+        private final TreeMap<String, Builder> children = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private RendangBukkitCommand.Execution execution;
+        private RendangBukkitCommand.Execution completion;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        private Builder path(String path) {
+            Builder node = this;
+            for (String part : path.trim().split("\\s+")) {
+                if (part.isEmpty()) continue;
+                node = node.children.computeIfAbsent(part, Builder::new);
+            }
+            return node;
+        }
+
+        Builder execution(String path, RendangBukkitCommand.Execution execution) {
+            path(path).execution = execution;
+            return this;
+        }
+
+        Builder completion(String path, RendangBukkitCommand.Execution completion) {
+            path(path).completion = completion;
+            return this;
+        }
+
+        CommandNode build() {
+            CommandNode[] built = children.isEmpty() ? NO_CHILDREN : new CommandNode[children.size()];
+            int i = 0;
+            for (Builder child : children.values()) {
+                built[i++] = child.build();
+            }
+            return new CommandNode(name, execution, completion, built);
+        }
+    }
+
+}
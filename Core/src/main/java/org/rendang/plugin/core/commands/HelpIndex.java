@@ -0,0 +1,105 @@
+package org.rendang.plugin.core.commands;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Help pages of a command, pre-rendered once and filtered by permission.
+ * <p>
+ * Every subcommand is rendered to a component fragment in sorted order. Each distinct permission
+ * node maps to a bitset of the fragments it unlocks, so a sender's visible set is the bitset of
+ * unrestricted fragments or-ed with those of the nodes it holds. Pages are assembled from the
+ * fragments once per distinct set of held nodes and cached.
+ * </p>
+ */
+final class HelpIndex {
+
+    static final int PAGE_SIZE = 5;
+    private static final int MAX_CACHED_VIEWS = 64;
+
+    private final String commandName;
+    private final Component[] fragments;
+    private final String[] permissions;
+    private final BitSet[] byPermission;
+    private final BitSet unrestricted = new BitSet();
+    private final Map<BitSet, Component[]> views = new ConcurrentHashMap<>();
+
+    HelpIndex(String commandName, Map<String, RendangBukkitCommand.Execution> executor) {
+        this.commandName = commandName;
+        List<String> commands = new ArrayList<>(executor.keySet());
+        Collections.sort(commands);
+        this.fragments = new Component[commands.size()];
+        Map<String, BitSet> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            RendangBukkitCommand.Execution execution = executor.get(commands.get(i));
+            fragments[i] = Component.text()
+                    .append(Component.newline())
+                    .append(Component.text(execution.command + " : /" + commandName + " "
+                            + execution.command.toLowerCase(Locale.ROOT) + " " + execution.usage, NamedTextColor.GOLD))
+                    .append(Component.newline())
+                    .append(Component.text("  " + execution.description))
+                    .build();
+            if (execution.permission.isEmpty()) {
+                unrestricted.set(i);
+            } else {
+                nodes.computeIfAbsent(execution.permission, permission -> new BitSet()).set(i);
+            }
+        }
+        this.permissions = nodes.keySet().toArray(new String[0]);
+        this.byPermission = nodes.values().toArray(new BitSet[0]);
+    }
+
+    /**
+     * @return the pages listing the commands the sender may use
+     */
+    Component[] pages(CommandSender sender) {
+        BitSet held = new BitSet(permissions.length);
+        for (int i = 0; i < permissions.length; i++) {
+            if (sender.hasPermission(permissions[i])) held.set(i);
+        }
+        Component[] pages = views.get(held);
+        if (pages == null) {
+            if (views.size() >= MAX_CACHED_VIEWS) views.clear();
+            pages = views.computeIfAbsent(held, this::build);
+        }
+        return pages;
+    }
+
+    private Component[] build(BitSet held) {
+        BitSet visible = (BitSet) unrestricted.clone();
+        for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+            visible.or(byPermission[i]);
+        }
+        int count = visible.cardinality();
+        int maxPage = (int) Math.ceil(count / (double) PAGE_SIZE);
+        Component[] pages = new Component[maxPage];
+        int fragment = visible.nextSetBit(0);
+        for (int page = 0; page < maxPage; page++) {
+            TextComponent.Builder message = Component.text()
+                    .append(Component.text("---- Help -- Page " + (page + 1) + "/" + maxPage + "----", NamedTextColor.GREEN));
+            for (int i = 0; i < PAGE_SIZE && fragment >= 0; i++) {
+                message.append(fragments[fragment]);
+                fragment = visible.nextSetBit(fragment + 1);
+            }
+            if (page + 1 < maxPage) {
+                message.append(Component.newline())
+                        .append(Component.text("Type /" + commandName + " help ", NamedTextColor.GREEN))
+                        .append(Component.text(String.valueOf(page + 2), NamedTextColor.GOLD))
+                        .append(Component.text(" to see more commands", NamedTextColor.GREEN));
+            }
+            pages[page] = message.build();
+        }
+        return pages;
+    }
+}
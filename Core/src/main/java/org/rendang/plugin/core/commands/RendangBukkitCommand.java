@@ -1,58 +1,188 @@
 package org.rendang.plugin.core.commands;
 
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import net.kyori.adventure.text.Component;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Entity;
+import org.rendang.plugin.core.commands.annotation.Arg;
 import org.rendang.plugin.core.commands.annotation.AutoComplete;
 import org.rendang.plugin.core.commands.annotation.CommandExecute;
+import org.rendang.plugin.core.commands.annotation.CommandThread;
+import org.rendang.plugin.core.commands.argument.CommandArguments;
+import org.rendang.plugin.core.commands.argument.ParseResult;
 import org.rendang.plugin.core.commands.event.CommandEvent;
+import org.rendang.plugin.core.commands.invoker.AsyncCompletionInvoker;
+import org.rendang.plugin.core.commands.invoker.CommandInvoker;
+import org.rendang.plugin.core.commands.invoker.CompletionInvoker;
+import org.rendang.plugin.core.commands.invoker.DispatchTable;
+import org.rendang.plugin.core.commands.invoker.HandlerSpec;
+import org.rendang.plugin.core.commands.invoker.InvokerFactory;
+import org.rendang.plugin.core.commands.limit.CommandLimiter;
+import org.rendang.plugin.core.metrics.InvocationMetrics;
+import org.rendang.plugin.core.metrics.LatencyHistogram;
+import org.rendang.plugin.core.metrics.MetricsRegistry;
+import org.rendang.plugin.core.scheduler.RendangScheduler;
+import org.rendang.plugin.core.scheduler.TaskProfiler;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class RendangBukkitCommand extends Command implements TabCompleter, CommandExecutor {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
     final HashMap<String, Execution> executor = new HashMap<>();
     final HashMap<String, Execution> completor = new HashMap<>();
     final RendangCommand rendangCommand;
+    volatile CommandNode root;
+    final RendangScheduler scheduler;
+    final MetricsRegistry metrics = new MetricsRegistry();
+    private volatile HelpIndex help;
+    private volatile CommandLimiter limiter;
+    private final ConcurrentHashMap<Object, Integer> inFlight = new ConcurrentHashMap<>();
 
     public RendangBukkitCommand(RendangCommand RendangCommand) {
+        this(RendangCommand, null);
+    }
+
+    /**
+     * @param scheduler Scheduler used by handlers that do not run on {@link CommandThread#CALLER}, may be null
+     *                  if every handler runs on the caller thread
+     */
+    public RendangBukkitCommand(RendangCommand RendangCommand, RendangScheduler scheduler) {
         super(RendangCommand.getCommandName());
         this.rendangCommand = RendangCommand;
-        Class<RendangBukkitCommand> commandsInstanceClass = RendangBukkitCommand.class;
-        for (Method method : commandsInstanceClass.getDeclaredMethods()) {
-            if (method.isAnnotationPresent(CommandExecute.class)) {
-                CommandExecute commandExecute = method.getAnnotation(CommandExecute.class);
-                executor.put(commandExecute.command(), new Execution(this, method));
-            }
-            if (method.isAnnotationPresent(AutoComplete.class)) {
-                AutoComplete autoComplete = method.getAnnotation(AutoComplete.class);
-                completor.put(autoComplete.command(), new Execution(this, method));
+        this.scheduler = scheduler;
+        scan(this, RendangBukkitCommand.class);
+        scan(RendangCommand, RendangCommand.getClass());
+        rebuild();
+    }
+
+    /**
+     * Adds the {@link CommandExecute} and {@link AutoComplete} methods of another object to this command,
+     * for subcommands registered after startup. The dispatch tree and the cached help pages are rebuilt.
+     */
+    public synchronized void addHandlers(Object handlers) {
+        scan(handlers, handlers.getClass());
+        rebuild();
+    }
+
+    /**
+     * Adds the {@code metrics} subcommand, which shows and resets the handler metrics of this command.
+     *
+     * @param permission Permission needed to use it, for example {@code "myplugin.command.metrics"}
+     */
+    public synchronized void enableMetricsCommand(String permission) {
+        scan(new MetricsSubcommand(), MetricsSubcommand.class, permission);
+        rebuild();
+    }
+
+    /**
+     * Adds the {@code profiler} subcommand, which starts, stops and reports the task profiler of the scheduler.
+     *
+     * @param permission Permission needed to use it, for example {@code "myplugin.command.profiler"}
+     */
+    public synchronized void enableProfilerCommand(String permission) {
+        scan(new ProfilerSubcommand(), ProfilerSubcommand.class, permission);
+        rebuild();
+    }
+
+    /**
+     * Applies rate limits and completion caching to this command.
+     * @param limiter The limiter, or null to disable limiting
+     */
+    public void setLimiter(CommandLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Compiles the current subcommands into a Brigadier tree with native argument types, for
+     * registration through Paper's command lifecycle event.
+     */
+    public LiteralCommandNode<CommandSourceStack> toBrigadier() {
+        return BrigadierTree.compile(this);
+    }
+
+    private void rebuild() {
+        CommandNode.Builder builder = CommandNode.builder();
+        executor.forEach(builder::execution);
+        completor.forEach(builder::completion);
+        this.root = builder.build();
+        this.help = new HelpIndex(rendangCommand.getCommandName(), executor);
+    }
+
+    private void scan(Object context, Class<?> clazz) {
+        scan(context, clazz, null);
+    }
+
+    /**
+     * @param permission Replaces the permission of every handler of the class, unless null
+     */
+    private void scan(Object context, Class<?> clazz, String permission) {
+        DispatchTable table = InvokerFactory.table(clazz);
+        List<HandlerSpec> handlers = table != null ? table.handlers() : null;
+        if (handlers != null) {
+            for (HandlerSpec handler : handlers) {
+                add(context, handler, permission, table, null);
             }
+            return;
         }
-        Class<?> clazz = RendangCommand.getClass();
         for (Method method : clazz.getDeclaredMethods()) {
-            if (method.isAnnotationPresent(CommandExecute.class)) {
-                CommandExecute commandExecute = method.getAnnotation(CommandExecute.class);
-                executor.put(commandExecute.command(), new Execution(RendangCommand, method));
+            CommandExecute commandExecute = method.getAnnotation(CommandExecute.class);
+            if (commandExecute != null) {
+                add(context, HandlerSpec.of(method, commandExecute), permission, null, method);
             }
-            if (method.isAnnotationPresent(AutoComplete.class)) {
-                AutoComplete autoComplete = method.getAnnotation(AutoComplete.class);
-                completor.put(autoComplete.command(), new Execution(RendangCommand, method));
+            AutoComplete autoComplete = method.getAnnotation(AutoComplete.class);
+            if (autoComplete != null) {
+                add(context, HandlerSpec.of(method, autoComplete), permission, null, method);
             }
         }
-        for(Execution execution : executor.values()){
-            if(execution.method.getReturnType() != boolean.class){
-                throw new IllegalArgumentException("CommandExecute method must return boolean");
-            }
-            execution.method.setAccessible(true);
+    }
+
+    /**
+     * @param permission Replaces the permission of the handler, unless null
+     * @param table      The generated table holding the invoker, or null to bind the method
+     * @param method     The handler method, only needed without a table
+     */
+    private void add(Object context, HandlerSpec handler, String permission, DispatchTable table, Method method) {
+        if (permission != null) {
+            handler = handler.withPermission(permission);
         }
-        for(Execution execution : completor.values()){
-            if(execution.method.getReturnType() != List.class){
-                throw new IllegalArgumentException("AutoComplete method must return List<String>");
+        Execution execution = switch (handler.kind()) {
+            case COMMAND -> {
+                if (handler.thread() != CommandThread.CALLER && scheduler == null) {
+                    throw new IllegalArgumentException("CommandExecute handler " + handler.command()
+                            + " runs on " + handler.thread() + " and needs a RendangScheduler");
+                }
+                CommandArguments arguments = CommandArguments.of(handler);
+                CommandInvoker invoker = table != null ? table.command(context, handler.key()) : InvokerFactory.command(context, method);
+                yield new Execution(context, handler, arguments, invoker, null, null);
             }
-            execution.method.setAccessible(true);
-        }
+            case COMPLETION -> new Execution(context, handler, null, null,
+                    table != null ? table.completion(context, handler.key()) : InvokerFactory.completion(context, method), null);
+            case ASYNC_COMPLETION -> {
+                if (scheduler == null) {
+                    throw new IllegalArgumentException("AutoComplete handler " + handler.command()
+                            + " returns a CompletableFuture and needs a RendangScheduler");
+                }
+                yield new Execution(context, handler, null, null, null,
+                        table != null ? table.asyncCompletion(context, handler.key()) : InvokerFactory.asyncCompletion(context, method));
+            }
+        };
+        (handler.kind() == HandlerSpec.Kind.COMMAND ? executor : completor).put(handler.command(), execution);
+        metrics.register(execution.metrics);
     }
 
     @Override
@@ -66,40 +196,15 @@ public class RendangBukkitCommand extends Command implements TabCompleter, Comma
         return result != null ? result : Collections.emptyList();
     }
 
-    @CommandExecute(command = "help", usages = "<page>", description = "Shows all commands")
-    public boolean helpCommand(CommandEvent event) {
-        List<String> commandsString = new ArrayList<>();
-        final int max = 5;
-        for(String field : executor.keySet()) {
-            CommandExecute commandExecute = executor.get(field).method.getAnnotation(CommandExecute.class);
-            commandsString.add(commandExecute.command());
-        }
-        Collections.sort(commandsString);
-        int maxPage = (int) Math.ceil(commandsString.size() / (double) max);
-        int page;
-        if(event.getArgs().length <= 1){
-            page = 0;
-        } else {
-            page = Integer.parseInt(event.getArgs()[1]) - 1;
-        }
-        if(page < 0 || page >= maxPage){
+    @CommandExecute(command = "help", description = "Shows all commands")
+    public boolean helpCommand(CommandEvent event, @Arg(value = "page", optional = true, defaultValue = "1", min = 1) int pageNumber) {
+        Component[] pages = help.pages(event.getSender());
+        int page = pageNumber - 1;
+        if(page < 0 || page >= pages.length){
             event.getSender().sendMessage(ChatColor.DARK_RED + "Unknown chapter");
             return true;
         }
-
-        StringBuilder message = new StringBuilder(ChatColor.GREEN + "---- Help -- Page " + (page + 1) + "/"+ maxPage + "----" + ChatColor.RESET);
-        for (int i = page*max; i < max+(page*max); i++) {
-            if (i >= commandsString.size()) break;
-            CommandExecute commandExecute = executor.get(commandsString.get(i)).method.getAnnotation(CommandExecute.class);
-            message.append("\n" + ChatColor.GOLD).append(commandExecute.command())
-                    .append(" : /" + rendangCommand.getCommandName() + " ").append(commandExecute.command().toLowerCase(Locale.ROOT)).append(" ")
-                    .append(commandExecute.usages()).append(ChatColor.RESET + "\n");
-            message.append("  ").append(commandExecute.description());
-        }
-        if(page + 1 < maxPage){
-            message.append("\n" + ChatColor.GREEN + "Type /" + rendangCommand.getCommandName() + " help " + ChatColor.GOLD.toString() + (page+2) + ChatColor.GREEN.toString() + " to see more commands");
-        }
-        event.getSender().sendMessage(message.toString());
+        event.getSender().sendMessage(pages[page]);
         return true;
     }
 
@@ -108,62 +213,356 @@ public class RendangBukkitCommand extends Command implements TabCompleter, Comma
         return List.of(new String[]{"[number]"});
     }
 
+    /**
+     * The {@code metrics} subcommand, added by {@link #enableMetricsCommand(String)} with the plugin's permission.
+     */
+    public final class MetricsSubcommand {
+
+        @CommandExecute(command = "metrics", description = "Shows command latency and error counts")
+        public boolean metricsCommand(CommandEvent event, @Arg(value = "reset", optional = true) String reset) {
+            if (reset != null) {
+                if (!reset.equalsIgnoreCase("reset")) return false;
+                metrics.reset();
+                event.reply(ChatColor.GREEN + "Command metrics reset");
+                return true;
+            }
+            StringBuilder message = new StringBuilder(ChatColor.GREEN + "---- Metrics -- /" + rendangCommand.getCommandName() + " ----" + ChatColor.RESET);
+            for (InvocationMetrics.Snapshot snapshot : metrics.snapshot()) {
+                if (snapshot.invocations() == 0) continue;
+                LatencyHistogram.Snapshot latency = snapshot.latency();
+                message.append("\n" + ChatColor.GOLD).append(snapshot.name()).append(ChatColor.RESET)
+                        .append(" calls=").append(snapshot.invocations())
+                        .append(" errors=").append(snapshot.errors())
+                        .append(" p50=").append(formatMillis(latency.getPercentileNanos(0.5)))
+                        .append(" p99=").append(formatMillis(latency.getPercentileNanos(0.99)))
+                        .append(" max=").append(formatMillis(latency.getMaxNanos()))
+                        .append(" total=").append(latency.getTotal(TimeUnit.MILLISECONDS)).append("ms");
+            }
+            event.reply(message.toString());
+            return true;
+        }
+
+        @AutoComplete(command = "metrics")
+        public List<String> metricsCompleter(CommandEvent event) {
+            return List.of("reset");
+        }
+    }
+
+    /**
+     * The {@code profiler} subcommand, added by {@link #enableProfilerCommand(String)} with the plugin's permission.
+     */
+    public final class ProfilerSubcommand {
+
+        @CommandExecute(command = "profiler", usages = "<start|stop|report|dump> [tickShare]",
+                description = "Profiles scheduled tasks and reports the slowest")
+        public boolean profilerCommand(CommandEvent event, @Arg("action") String action,
+                                       @Arg(value = "tickShare", optional = true, defaultValue = "0.2", min = 0.01, max = 1) double tickShare) {
+            if (scheduler == null) {
+                event.reply(ChatColor.DARK_RED + "This command has no scheduler to profile");
+                return true;
+            }
+            switch (action.toLowerCase(Locale.ROOT)) {
+                case "start" -> {
+                    TaskProfiler profiler = scheduler.enableProfiler(tickShare);
+                    event.reply(ChatColor.GREEN + "Profiling tasks, overrun threshold "
+                            + formatMillis(profiler.getOverrunThreshold(TimeUnit.NANOSECONDS)));
+                }
+                case "stop" -> {
+                    TaskProfiler profiler = scheduler.disableProfiler();
+                    if (profiler == null) event.reply(ChatColor.DARK_RED + "Profiling is not running");
+                    else event.reply(profiler.report(10));
+                }
+                case "report" -> {
+                    TaskProfiler profiler = scheduler.getProfiler();
+                    if (profiler == null) event.reply(ChatColor.DARK_RED + "Profiling is not running");
+                    else event.reply(profiler.report(10));
+                }
+                case "dump" -> {
+                    Path path = scheduler.getPlugin().getDataFolder().toPath().resolve("profiler")
+                            .resolve("tasks-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt");
+                    CommandSender sender = event.getSender();
+                    scheduler.writeProfilerReport(path, Integer.MAX_VALUE).whenCompleteAsync((written, error) -> {
+                        if (error != null) sender.sendMessage(ChatColor.DARK_RED + "Could not write the report: " + error.getMessage());
+                        else sender.sendMessage(ChatColor.GREEN + "Profiler report written to " + written);
+                    }, scheduler.getSyncExecutor());
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @AutoComplete(command = "profiler")
+        public List<String> profilerCompleter(CommandEvent event) {
+            return event.getArgs().length <= 2 ? List.of("start", "stop", "report", "dump") : List.of("0.2", "0.5");
+        }
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * @return the invocation counts, error counts and latency of every handler of this command, keyed by
+     * subcommand path, with tab completion handlers suffixed by {@code " (complete)"}
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
         if (args.length == 0) {
 
         } else {
-            String rootCommand = args[0];
-            if(!executor.containsKey(rootCommand)){
+            Execution execution = null;
+            CommandNode node = root;
+            for (String arg : args) {
+                node = node.child(arg);
+                if (node == null) break;
+                if (node.execution != null) execution = node.execution;
+            }
+            if(execution == null){
                 sender.sendMessage("This command is not found. Please use /" + rendangCommand.getCommandName() + " help to see all commands.");
                 return true;
             }
-            CommandExecute commandExecute = executor.get(rootCommand).method.getAnnotation(CommandExecute.class);
-            if(!commandExecute.permission().isEmpty() && !sender.hasPermission(commandExecute.permission())){
+            if(!execution.permission.isEmpty() && !sender.hasPermission(execution.permission)){
                 sender.sendMessage("You don't have permission to use this command");
                 return true;
             }
-            try {
-                CommandEvent event = new CommandEvent(sender, command, label, args);
-                Execution execution = executor.get(rootCommand);
-                return (boolean) executor.get(rootCommand).method.invoke(execution.context, event);
-            } catch (IndexOutOfBoundsException exception) {
-                sender.sendMessage("This command format is not valid. Please use /" + rendangCommand.getCommandName() + " help for more info.");
-                //exception.printStackTrace();
-            } catch (Exception e) {
-                sender.sendMessage("This command is invalid. Please use /" + rendangCommand.getCommandName() + " help to see all commands.");
-                e.printStackTrace();
+            CommandLimiter currentLimiter = limiter;
+            if(currentLimiter != null && !currentLimiter.tryExecute(sender, execution)){
+                sender.sendMessage(currentLimiter.getRejectionMessage(sender));
+                return true;
             }
+            Object[] arguments = NO_ARGUMENTS;
+            if(execution.arguments != null){
+                ParseResult<Object[]> parsed = execution.arguments.parse(sender, args, execution.depth);
+                if(!parsed.isSuccess()){
+                    sender.sendMessage(parsed.getError() + ". Usage: /" + rendangCommand.getCommandName() + " "
+                            + execution.command + " " + execution.usage);
+                    return true;
+                }
+                arguments = parsed.getValue();
+            }
+            if(execution.thread != CommandThread.CALLER){
+                dispatch(execution, sender, command, label, args, arguments);
+                return true;
+            }
+            return invoke(execution, new CommandEvent(sender, command, label, args, arguments));
         }
         return true;
     }
 
+    private boolean invoke(Execution execution, CommandEvent event) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = execution.commandInvoker.invoke(event);
+            failed = false;
+            return result;
+        } catch (IndexOutOfBoundsException exception) {
+            event.reply("This command format is not valid. Please use /" + rendangCommand.getCommandName() + " help for more info.");
+            //exception.printStackTrace();
+        } catch (Exception e) {
+            event.reply("This command is invalid. Please use /" + rendangCommand.getCommandName() + " help to see all commands.");
+            e.printStackTrace();
+        } finally {
+            execution.metrics.record(System.nanoTime() - start, failed);
+        }
+        return true;
+    }
+
+    /**
+     * Runs a handler on the thread requested by its {@link CommandExecute#thread()}, limiting how many
+     * invocations a single sender may have in flight. Replies are sent on the thread owning the sender.
+     */
+    private void dispatch(Execution execution, CommandSender sender, Command command, String label, String[] args, Object[] arguments) {
+        Object key = sender instanceof Entity entity ? entity.getUniqueId() : sender.getName();
+        if (inFlight.merge(key, 1, Integer::sum) > execution.maxInFlight) {
+            release(key);
+            sender.sendMessage("You already have a command running, please wait for it to finish.");
+            return;
+        }
+        CommandEvent event = new CommandEvent(sender, command, label, args, arguments, replyExecutor(sender));
+        Runnable task = RendangScheduler.named("/" + rendangCommand.getCommandName() + " " + execution.command, () -> {
+            try {
+                if (!invoke(execution, event)) {
+                    event.reply("Usage: /" + rendangCommand.getCommandName() + " " + execution.command + " " + execution.usage);
+                }
+            } finally {
+                release(key);
+            }
+        });
+        switch (execution.thread) {
+            case ASYNC -> scheduler.runTaskAsynchronously(task);
+            case GLOBAL -> {
+                if (scheduler.isGlobalThread()) task.run();
+                else scheduler.runTask(task);
+            }
+            case ENTITY, REGION -> {
+                if (!(sender instanceof Entity entity)) {
+                    if (scheduler.isGlobalThread()) task.run();
+                    else scheduler.runTask(task);
+                } else if (scheduler.isOwnedByCurrentRegion(entity)) {
+                    task.run();
+                } else if (execution.thread == CommandThread.ENTITY) {
+                    scheduler.runAtEntity(entity, task, () -> release(key));
+                } else {
+                    scheduler.runAtLocation(entity.getLocation(), task);
+                }
+            }
+            case CALLER -> task.run();
+        }
+    }
+
+    private void release(Object key) {
+        inFlight.computeIfPresent(key, (k, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private Executor replyExecutor(CommandSender sender) {
+        if (sender instanceof Entity entity) {
+            return task -> {
+                if (scheduler.isOwnedByCurrentRegion(entity)) task.run();
+                else scheduler.runAtEntity(entity, task, null);
+            };
+        }
+        return task -> {
+            if (scheduler.isGlobalThread()) task.run();
+            else scheduler.runTask(task);
+        };
+    }
+
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         List<String> completion = new ArrayList<>();
-        if(!executor.containsKey(args[0])){
-            if (args.length > 1) return completion;
-            List<String> commands = new ArrayList<>(executor.keySet());
-            completion.addAll(stringFilter(commands, args[0]));
-        } else {
-            if (args.length < 2) return completion;
-            String commandName = args[0];
-            Execution execution = completor.get(commandName);
-            if(execution == null) return completion;
-            AutoComplete autoComplete = execution.method.getAnnotation(AutoComplete.class);
-            if(autoComplete.permission().isEmpty() || sender.hasPermission(autoComplete.permission())){
-                try {
-                    List<String> result = (List<String>) execution.method.invoke(execution.context, new CommandEvent(sender, command, alias, args));
-                    if(result == null) return null;
-                    completion.addAll(stringFilter(result, args[args.length - 1]));
-                } catch (Exception exception) {
-                    exception.printStackTrace();
+        if (args.length == 0) return completion;
+        CommandNode node = root;
+        int last = args.length - 1;
+        int depth = 0;
+        while (depth < last) {
+            CommandNode child = node.child(args[depth]);
+            if (child == null) break;
+            node = child;
+            depth++;
+        }
+        if (depth == last) {
+            node.complete(args[last], completion);
+        } else if (node == root) {
+            return completion;
+        }
+        Execution execution = node.completion;
+        if(execution != null && execution.asyncCompletionInvoker != null){
+            // answered by tabCompleteAsync, never block the calling thread here
+            return completion;
+        }
+        if(execution == null){
+            Execution typed = node.execution;
+            if(typed != null && typed.arguments != null
+                    && (typed.permission.isEmpty() || sender.hasPermission(typed.permission))){
+                typed.arguments.suggest(sender, last - typed.depth, args[last], completion);
+            }
+            return completion;
+        }
+        if(execution.permission.isEmpty() || sender.hasPermission(execution.permission)){
+            CommandLimiter currentLimiter = limiter;
+            if(currentLimiter != null){
+                List<String> cached = currentLimiter.getCachedCompletion(sender, execution, args);
+                if(cached != null){
+                    completion.addAll(stringFilter(cached, args[last]));
+                    return completion;
                 }
+                if(!currentLimiter.tryComplete(sender, execution)) return completion;
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                List<String> result = execution.completionInvoker.complete(new CommandEvent(sender, command, alias, args));
+                failed = false;
+                if(result == null) return completion.isEmpty() ? null : completion;
+                if(currentLimiter != null) currentLimiter.cacheCompletion(sender, execution, args, result);
+                completion.addAll(stringFilter(result, args[last]));
+            } catch (Exception exception) {
+                exception.printStackTrace();
+            } finally {
+                execution.metrics.record(System.nanoTime() - start, failed);
             }
         }
         return completion;
     }
 
+    /**
+     * Completes the arguments without blocking the caller. Completers returning a {@code CompletableFuture}
+     * are invoked on the scheduler's async executor, cut off after their {@link AutoComplete#timeoutMillis()},
+     * and their result is filtered off the main thread. Other completers are answered immediately.
+     */
+    public CompletableFuture<List<String>> tabCompleteAsync(CommandSender sender, String alias, String[] args) {
+        List<String> completion = new ArrayList<>(tabComplete(sender, alias, args));
+        Execution execution = asyncCompleter(args);
+        if (execution == null || !(execution.permission.isEmpty() || sender.hasPermission(execution.permission))) {
+            return CompletableFuture.completedFuture(completion);
+        }
+        String filter = args[args.length - 1];
+        CommandLimiter currentLimiter = limiter;
+        if (currentLimiter != null) {
+            List<String> cached = currentLimiter.getCachedCompletion(sender, execution, args);
+            if (cached != null) {
+                completion.addAll(stringFilter(cached, filter));
+                return CompletableFuture.completedFuture(completion);
+            }
+            if (!currentLimiter.tryComplete(sender, execution)) return CompletableFuture.completedFuture(completion);
+        }
+        CommandEvent event = new CommandEvent(sender, this, alias, args);
+        long start = System.nanoTime();
+        long timeout = execution.timeoutMillis;
+        // the timeout on the supplyAsync future itself cancels and interrupts a completer that blocks
+        // its worker; the one on the composed result bounds the stage it returns
+        return scheduler.supplyAsync(() -> {
+                    try {
+                        return execution.asyncCompletionInvoker.complete(event);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .withTimeout(timeout, TimeUnit.MILLISECONDS)
+                .thenCompose(stage -> stage)
+                .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                .handle((result, error) -> {
+                    execution.metrics.record(System.nanoTime() - start, error != null);
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        if (!(cause instanceof TimeoutException)) cause.printStackTrace();
+                        return completion;
+                    }
+                    if (result == null) return completion;
+                    if (currentLimiter != null) currentLimiter.cacheCompletion(sender, execution, args, result);
+                    List<String> merged = new ArrayList<>(completion);
+                    merged.addAll(stringFilter(result, filter));
+                    return merged;
+                });
+    }
+
+    /**
+     * @return true if the arguments are completed by a completer returning a {@code CompletableFuture}
+     */
+    public boolean hasAsyncCompletion(String[] args) {
+        return asyncCompleter(args) != null;
+    }
+
+    private Execution asyncCompleter(String[] args) {
+        if (args.length == 0) return null;
+        CommandNode node = root;
+        int last = args.length - 1;
+        for (int depth = 0; depth < last; depth++) {
+            CommandNode child = node.child(args[depth]);
+            if (child == null) break;
+            node = child;
+        }
+        Execution execution = node == root && last > 0 ? null : node.completion;
+        return execution != null && execution.asyncCompletionInvoker != null ? execution : null;
+    }
+
     public boolean containsIgnoreCase(String string, String contains){
         return string.toLowerCase().contains(contains.toLowerCase());
     }
@@ -179,13 +578,47 @@ public class RendangBukkitCommand extends Command implements TabCompleter, Comma
         return filteredStrings;
     }
 
-    public class Execution {
-        Object context;
-        Method method;
+    /**
+     * A registered handler with its annotation metadata and compiled invoker, resolved once at registration
+     * so that dispatch never touches reflection.
+     */
+    public static class Execution {
+        final Object context;
+        final String command;
+        final String description;
+        final String permission;
+        final CommandArguments arguments;
+        final int depth;
+        final String usage;
+        final CommandThread thread;
+        final int maxInFlight;
+        final long timeoutMillis;
+        final CommandInvoker commandInvoker;
+        final CompletionInvoker completionInvoker;
+        final AsyncCompletionInvoker asyncCompletionInvoker;
+        final InvocationMetrics metrics;
 
-        public Execution(Object context, Method method) {
+        public Execution(Object context, HandlerSpec handler, CommandArguments arguments, CommandInvoker commandInvoker,
+                         CompletionInvoker completionInvoker, AsyncCompletionInvoker asyncCompletionInvoker) {
             this.context = context;
-            this.method = method;
+            this.command = handler.command();
+            this.description = handler.description();
+            this.permission = handler.permission();
+            this.arguments = arguments;
+            this.depth = pathLength(handler.command());
+            this.usage = !handler.usages().isEmpty() || arguments == null ? handler.usages() : arguments.getUsage();
+            this.thread = handler.thread();
+            this.maxInFlight = handler.maxInFlight();
+            this.timeoutMillis = handler.timeoutMillis();
+            this.commandInvoker = commandInvoker;
+            this.completionInvoker = completionInvoker;
+            this.asyncCompletionInvoker = asyncCompletionInvoker;
+            this.metrics = new InvocationMetrics(handler.kind() == HandlerSpec.Kind.COMMAND ? handler.command() : handler.command() + " (complete)");
+        }
+
+        private static int pathLength(String path) {
+            String trimmed = path.trim();
+            return trimmed.isEmpty() ? 0 : trimmed.split("\\s+").length;
         }
     }
 }
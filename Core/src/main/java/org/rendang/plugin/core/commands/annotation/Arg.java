@@ -0,0 +1,50 @@
+package org.rendang.plugin.core.commands.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Describes a typed parameter of a {@link CommandExecute} method.
+ * <p>
+ * Parameters after the leading {@code CommandEvent} are parsed from the arguments following the
+ * subcommand path. The annotation is optional; without it the parameter name is used in the usage.
+ * </p>
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Arg {
+
+    /**
+     * Name shown in the usage and error messages.
+     */
+    String value() default "";
+
+    /**
+     * Whether the argument may be omitted. Omitted arguments are passed as {@link #defaultValue()},
+     * or null when no default is set.
+     */
+    boolean optional() default false;
+
+    /**
+     * Raw value parsed at registration and used when an optional argument is omitted.
+     */
+    String defaultValue() default "";
+
+    /**
+     * Joins this and all remaining arguments with spaces. Only valid on the last parameter.
+     */
+    boolean greedy() default false;
+
+    /**
+     * Inclusive lower bound for numeric and duration (in seconds) arguments.
+     */
+    double min() default Double.NEGATIVE_INFINITY;
+
+    /**
+     * Inclusive upper bound for numeric and duration (in seconds) arguments.
+     */
+    double max() default Double.POSITIVE_INFINITY;
+
+}
@@ -12,4 +12,10 @@ public @interface AutoComplete {
     String command();
     String permission() default "";
 
+    /**
+     * Deadline in milliseconds for completers returning {@code CompletableFuture<List<String>>}.
+     * Suggestions that are not ready in time are dropped.
+     */
+    long timeoutMillis() default 1000;
+
 }
@@ -11,7 +11,18 @@ public @interface CommandExecute {
 
     String command();
     String permission() default "";
-    String usages();
+    String usages() default "";
     String description();
 
+    /**
+     * Thread the handler runs on. Arguments are always parsed on the dispatching thread.
+     */
+    CommandThread thread() default CommandThread.CALLER;
+
+    /**
+     * Maximum number of invocations of handlers not running on {@link CommandThread#CALLER}
+     * a single sender may have in flight at once.
+     */
+    int maxInFlight() default 1;
+
 }
\ No newline at end of file
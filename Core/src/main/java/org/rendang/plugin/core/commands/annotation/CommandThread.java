@@ -0,0 +1,27 @@
+package org.rendang.plugin.core.commands.annotation;
+
+/**
+ * Thread a {@link CommandExecute} handler is invoked on.
+ */
+public enum CommandThread {
+    /**
+     * The thread that dispatched the command: the main thread on Paper, the sender's region on Folia.
+     */
+    CALLER,
+    /**
+     * The async scheduler. Use this for handlers that block on databases, files or the network.
+     */
+    ASYNC,
+    /**
+     * The main thread on Paper, the global region on Folia.
+     */
+    GLOBAL,
+    /**
+     * The thread owning the sender entity. Senders that are not entities run on {@link #GLOBAL}.
+     */
+    ENTITY,
+    /**
+     * The region owning the sender's location. Senders that are not entities run on {@link #GLOBAL}.
+     */
+    REGION
+}
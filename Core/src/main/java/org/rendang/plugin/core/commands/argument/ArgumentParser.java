@@ -0,0 +1,23 @@
+package org.rendang.plugin.core.commands.argument;
+
+import org.bukkit.command.CommandSender;
+
+import java.util.Collection;
+
+/**
+ * Converts a raw command argument to a typed value and suggests values for tab completion.
+ * <p>
+ * Implementations must not throw on malformed input; they return {@link ParseResult#failure(String)}
+ * with a message for the sender instead. Parsers are shared between commands and must be stateless.
+ * </p>
+ */
+public interface ArgumentParser<T> {
+
+    ParseResult<T> parse(CommandSender sender, String input);
+
+    /**
+     * Adds suggestions starting with the given prefix to the output.
+     */
+    default void suggest(CommandSender sender, String prefix, Collection<String> out) {
+    }
+}
@@ -0,0 +1,253 @@
+package org.rendang.plugin.core.commands.argument;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link ArgumentParser}s by parameter type.
+ * <p>
+ * Parsers are created once per type and cached, so binding a command method only looks them up.
+ * Built-in types are strings, booleans, integral and floating point numbers, {@link Player},
+ * {@link World}, {@link Duration} and every enum. Custom types can be added with {@link #register}.
+ * </p>
+ */
+public final class ArgumentParsers {
+
+    private static final Map<Class<?>, ArgumentParser<?>> PARSERS = new ConcurrentHashMap<>();
+    private static final long INVALID = Long.MIN_VALUE;
+
+    static {
+        register(String.class, (sender, input) -> ParseResult.success(input));
+        ArgumentParser<Boolean> booleanParser = new ArgumentParser<>() {
+            @Override
+            public ParseResult<Boolean> parse(CommandSender sender, String input) {
+                if (input.equalsIgnoreCase("true")) return ParseResult.success(Boolean.TRUE);
+                if (input.equalsIgnoreCase("false")) return ParseResult.success(Boolean.FALSE);
+                return ParseResult.failure("'" + input + "' is not true or false");
+            }
+
+            @Override
+            public void suggest(CommandSender sender, String prefix, Collection<String> out) {
+                if ("true".regionMatches(true, 0, prefix, 0, prefix.length())) out.add("true");
+                if ("false".regionMatches(true, 0, prefix, 0, prefix.length())) out.add("false");
+            }
+        };
+        register(Boolean.class, booleanParser);
+        register(boolean.class, booleanParser);
+        ArgumentParser<Integer> integerParser = (sender, input) -> {
+            long value = parseLong(input);
+            if (value == INVALID || value != (int) value) return ParseResult.failure("'" + input + "' is not a valid number");
+            return ParseResult.success((int) value);
+        };
+        register(Integer.class, integerParser);
+        register(int.class, integerParser);
+        ArgumentParser<Long> longParser = (sender, input) -> {
+            long value = parseLong(input);
+            if (value == INVALID) return ParseResult.failure("'" + input + "' is not a valid number");
+            return ParseResult.success(value);
+        };
+        register(Long.class, longParser);
+        register(long.class, longParser);
+        ArgumentParser<Double> doubleParser = (sender, input) -> {
+            if (!isDecimal(input)) return ParseResult.failure("'" + input + "' is not a valid number");
+            return ParseResult.success(Double.parseDouble(input));
+        };
+        register(Double.class, doubleParser);
+        register(double.class, doubleParser);
+        register(Player.class, new ArgumentParser<>() {
+            @Override
+            public ParseResult<Player> parse(CommandSender sender, String input) {
+                Player player = Bukkit.getPlayerExact(input);
+                return player != null ? ParseResult.success(player) : ParseResult.failure("Player '" + input + "' is not online");
+            }
+
+            @Override
+            public void suggest(CommandSender sender, String prefix, Collection<String> out) {
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    if (player.getName().regionMatches(true, 0, prefix, 0, prefix.length())) out.add(player.getName());
+                }
+            }
+        });
+        register(World.class, new ArgumentParser<>() {
+            @Override
+            public ParseResult<World> parse(CommandSender sender, String input) {
+                World world = Bukkit.getWorld(input);
+                return world != null ? ParseResult.success(world) : ParseResult.failure("World '" + input + "' does not exist");
+            }
+
+            @Override
+            public void suggest(CommandSender sender, String prefix, Collection<String> out) {
+                for (World world : Bukkit.getWorlds()) {
+                    if (world.getName().regionMatches(true, 0, prefix, 0, prefix.length())) out.add(world.getName());
+                }
+            }
+        });
+        register(Duration.class, (sender, input) -> {
+            Duration duration = parseDuration(input);
+            return duration != null ? ParseResult.success(duration) : ParseResult.failure("'" + input + "' is not a valid duration, use for example 1h30m or 45s");
+        });
+    }
+
+    private ArgumentParsers() {
+    }
+
+    /**
+     * Registers or replaces the parser used for parameters of the given type.
+     */
+    public static <T> void register(Class<T> type, ArgumentParser<? extends T> parser) {
+        PARSERS.put(type, parser);
+    }
+
+    /**
+     * @return the cached parser for the type, or null if the type is not supported
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> ArgumentParser<T> get(Class<T> type) {
+        ArgumentParser<?> parser = PARSERS.get(type);
+        if (parser == null && type.isEnum()) {
+            parser = PARSERS.computeIfAbsent(type, enumType -> new EnumParser(enumType));
+        }
+        return (ArgumentParser<T>) parser;
+    }
+
+    /**
+     * Wraps a parser so that parsed numbers or durations outside the inclusive range are rejected.
+     */
+    public static <T> ArgumentParser<T> range(ArgumentParser<T> parser, double min, double max) {
+        return new ArgumentParser<>() {
+            @Override
+            public ParseResult<T> parse(CommandSender sender, String input) {
+                ParseResult<T> result = parser.parse(sender, input);
+                if (!result.isSuccess()) return result;
+                T value = result.getValue();
+                double number = value instanceof Duration duration ? duration.toMillis() / 1000.0 : ((Number) value).doubleValue();
+                if (number < min || number > max) {
+                    return ParseResult.failure("'" + input + "' " + describe(min, max));
+                }
+                return result;
+            }
+
+            @Override
+            public void suggest(CommandSender sender, String prefix, Collection<String> out) {
+                parser.suggest(sender, prefix, out);
+            }
+        };
+    }
+
+    private static String describe(double min, double max) {
+        if (Double.isInfinite(max)) return "must be at least " + format(min);
+        if (Double.isInfinite(min)) return "must be at most " + format(max);
+        return "must be between " + format(min) + " and " + format(max);
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private static long parseLong(String input) {
+        int length = input.length();
+        if (length == 0 || length > 19) return INVALID;
+        int i = 0;
+        boolean negative = input.charAt(0) == '-';
+        if (negative || input.charAt(0) == '+') {
+            if (length == 1) return INVALID;
+            i = 1;
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') return INVALID;
+            value = value * 10 + (c - '0');
+            if (value < 0) return INVALID;
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isDecimal(String input) {
+        int length = input.length();
+        if (length == 0) return false;
+        int i = input.charAt(0) == '-' || input.charAt(0) == '+' ? 1 : 0;
+        boolean digits = false;
+        boolean dot = false;
+        for (; i < length; i++) {
+            char c = input.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    /**
+     * Parses durations such as {@code 90}, {@code 45s}, {@code 5m} or {@code 1h30m}. A bare number is seconds.
+     *
+     * @return the duration, or null if the input is malformed
+     */
+    static Duration parseDuration(String input) {
+        if (input.isEmpty()) return null;
+        long total = 0;
+        long value = -1;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value) * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) return null;
+                continue;
+            }
+            if (value < 0) return null;
+            long unit = switch (Character.toLowerCase(c)) {
+                case 's' -> 1;
+                case 'm' -> 60;
+                case 'h' -> 3600;
+                case 'd' -> 86400;
+                case 'w' -> 604800;
+                default -> -1;
+            };
+            if (unit < 0) return null;
+            total += value * unit;
+            value = -1;
+        }
+        if (value >= 0) total += value;
+        return Duration.ofSeconds(total);
+    }
+
+    private static final class EnumParser<E extends Enum<E>> implements ArgumentParser<E> {
+        private final E[] constants;
+        private final String[] keys;
+
+        private EnumParser(Class<E> type) {
+            this.constants = type.getEnumConstants();
+            this.keys = new String[constants.length];
+            for (int i = 0; i < constants.length; i++) {
+                keys[i] = constants[i].name().toLowerCase(Locale.ROOT);
+            }
+        }
+
+        @Override
+        public ParseResult<E> parse(CommandSender sender, String input) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equalsIgnoreCase(input)) return ParseResult.success(constants[i]);
+            }
+            return ParseResult.failure("'" + input + "' is not one of " + String.join(", ", keys));
+        }
+
+        @Override
+        public void suggest(CommandSender sender, String prefix, Collection<String> out) {
+            for (String key : keys) {
+                if (key.regionMatches(true, 0, prefix, 0, prefix.length())) out.add(key);
+            }
+        }
+    }
+}
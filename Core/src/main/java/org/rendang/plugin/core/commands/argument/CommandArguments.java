@@ -0,0 +1,170 @@
+package org.rendang.plugin.core.commands.argument;
+
+import org.bukkit.command.CommandSender;
+import org.rendang.plugin.core.commands.annotation.Arg;
+import org.rendang.plugin.core.commands.invoker.HandlerSpec;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The typed parameters of a command method, bound to their parsers once at registration.
+ * <p>
+ * Every parameter after the leading {@code CommandEvent} is resolved to a cached
+ * {@link ArgumentParser}, so parsing a command only walks an array. Malformed input is reported
+ * through {@link ParseResult} rather than exceptions.
+ * </p>
+ */
+public final class CommandArguments {
+
+    private final Argument[] arguments;
+    private final String usage;
+
+    private CommandArguments(Argument[] arguments) {
+        this.arguments = arguments;
+        StringBuilder usage = new StringBuilder();
+        for (Argument argument : arguments) {
+            if (!usage.isEmpty()) usage.append(' ');
+            usage.append(argument.optional ? '[' : '<').append(argument.name)
+                    .append(argument.greedy ? "..." : "")
+                    .append(argument.optional ? ']' : '>');
+        }
+        this.usage = usage.toString();
+    }
+
+    /**
+     * Binds the parameters following the leading {@code CommandEvent} of the handler.
+     *
+     * @return the bound arguments, or null if the handler takes only the event
+     * @throws IllegalArgumentException if a parameter type has no parser or is declared inconsistently
+     */
+    public static CommandArguments of(HandlerSpec handler) {
+        List<HandlerSpec.Argument> declared = handler.arguments();
+        if (declared.isEmpty()) return null;
+        Argument[] arguments = new Argument[declared.size()];
+        for (int i = 0; i < declared.size(); i++) {
+            HandlerSpec.Argument arg = declared.get(i);
+            String name = arg.name();
+            ArgumentParser<?> parser = ArgumentParsers.get(arg.type());
+            if (parser == null) {
+                throw new IllegalArgumentException("No argument parser for " + arg.type().getName()
+                        + " in command " + handler.command());
+            }
+            if (arg.greedy() && (i != declared.size() - 1 || arg.type() != String.class)) {
+                throw new IllegalArgumentException("Greedy argument " + name + " must be the last parameter and a String");
+            }
+            if (arg.min() != Double.NEGATIVE_INFINITY || arg.max() != Double.POSITIVE_INFINITY) {
+                if (!isRanged(arg.type())) {
+                    throw new IllegalArgumentException("Argument " + name + " has a min or max but is not a number or Duration");
+                }
+                parser = ArgumentParsers.range(parser, arg.min(), arg.max());
+            }
+            Object defaultValue = null;
+            if (arg.optional() && !arg.defaultValue().isEmpty()) {
+                ParseResult<?> result = parser.parse(null, arg.defaultValue());
+                if (!result.isSuccess()) {
+                    throw new IllegalArgumentException("Invalid default value for argument " + name + ": " + result.getError());
+                }
+                defaultValue = result.getValue();
+            } else if (arg.optional() && arg.type().isPrimitive()) {
+                throw new IllegalArgumentException("Optional primitive argument " + name + " needs a default value");
+            }
+            arguments[i] = new Argument(name, arg.type(), parser, arg.optional(), arg.greedy(), defaultValue, arg.min(), arg.max());
+        }
+        return new CommandArguments(arguments);
+    }
+
+    /**
+     * Parses the command arguments starting at the offset, which is the length of the subcommand path.
+     *
+     * @return the values in parameter order, or the error for the first argument that failed
+     */
+    public ParseResult<Object[]> parse(CommandSender sender, String[] args, int offset) {
+        Object[] values = new Object[arguments.length];
+        int index = offset;
+        for (int i = 0; i < arguments.length; i++) {
+            Argument argument = arguments[i];
+            if (index >= args.length) {
+                if (!argument.optional) {
+                    return ParseResult.failure("Missing argument <" + argument.name + ">");
+                }
+                values[i] = argument.defaultValue;
+                continue;
+            }
+            String input;
+            if (argument.greedy) {
+                input = String.join(" ", Arrays.asList(args).subList(index, args.length));
+                index = args.length;
+            } else {
+                input = args[index++];
+            }
+            ParseResult<?> result = argument.parser.parse(sender, input);
+            if (!result.isSuccess()) {
+                return ParseResult.failure(result.getError());
+            }
+            values[i] = result.getValue();
+        }
+        if (index < args.length) {
+            return ParseResult.failure("Too many arguments");
+        }
+        return ParseResult.success(values);
+    }
+
+    /**
+     * Adds suggestions for the argument at the index, counted from the end of the subcommand path.
+     */
+    public void suggest(CommandSender sender, int index, String prefix, Collection<String> out) {
+        if (index < 0) return;
+        if (index >= arguments.length) {
+            if (arguments.length == 0 || !arguments[arguments.length - 1].greedy) return;
+            index = arguments.length - 1;
+        }
+        arguments[index].parser.suggest(sender, prefix, out);
+    }
+
+    /**
+     * @return the number of typed arguments
+     */
+    public int size() {
+        return arguments.length;
+    }
+
+    /**
+     * @return the declaration of every typed argument in parameter order, for generating native command trees
+     */
+    public List<ArgumentInfo> getArguments() {
+        return Arrays.stream(arguments)
+                .map(argument -> new ArgumentInfo(argument.name, argument.type, argument.optional, argument.greedy, argument.min, argument.max))
+                .toList();
+    }
+
+    /**
+     * @return the generated usage, for example {@code <player> [amount]}
+     */
+    public String getUsage() {
+        return usage;
+    }
+
+    /**
+     * @return whether {@link ArgumentParsers#range} can check values of the type
+     */
+    private static boolean isRanged(Class<?> type) {
+        if (type.isPrimitive()) return type != boolean.class && type != char.class;
+        return Number.class.isAssignableFrom(type) || type == Duration.class;
+    }
+
+    private record Argument(String name, Class<?> type, ArgumentParser<?> parser, boolean optional, boolean greedy,
+                            Object defaultValue, double min, double max) {
+    }
+
+    /**
+     * A typed argument as declared on the command method.
+     *
+     * @param min Inclusive lower bound from {@link Arg#min()}, negative infinity if unbounded
+     * @param max Inclusive upper bound from {@link Arg#max()}, positive infinity if unbounded
+     */
+    public record ArgumentInfo(String name, Class<?> type, boolean optional, boolean greedy, double min, double max) {
+    }
+}
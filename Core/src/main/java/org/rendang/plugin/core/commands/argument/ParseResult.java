@@ -0,0 +1,36 @@
+package org.rendang.plugin.core.commands.argument;
+
+/**
+ * Result of parsing a single argument: either a value or an error message for the sender.
+ * Parsers report malformed input through this type instead of throwing.
+ */
+public final class ParseResult<T> {
+
+    private final T value;
+    private final String error;
+
+    private ParseResult(T value, String error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    public static <T> ParseResult<T> success(T value) {
+        return new ParseResult<>(value, null);
+    }
+
+    public static <T> ParseResult<T> failure(String error) {
+        return new ParseResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
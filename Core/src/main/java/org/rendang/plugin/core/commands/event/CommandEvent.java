@@ -1,20 +1,35 @@
 package org.rendang.plugin.core.commands.event;
 
+import net.kyori.adventure.text.Component;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 
+import java.util.concurrent.Executor;
+
 public class CommandEvent {
 
     private CommandSender sender;
     private Command command;
     private String label;
     private String[] args;
+    private Object[] arguments;
+    private Executor replyExecutor;
 
     public CommandEvent(CommandSender sender, Command command, String alias, String[] args) {
+        this(sender, command, alias, args, new Object[0]);
+    }
+
+    public CommandEvent(CommandSender sender, Command command, String alias, String[] args, Object[] arguments) {
+        this(sender, command, alias, args, arguments, Runnable::run);
+    }
+
+    public CommandEvent(CommandSender sender, Command command, String alias, String[] args, Object[] arguments, Executor replyExecutor) {
         this.sender = sender;
         this.command = command;
         this.label = alias;
         this.args = args;
+        this.arguments = arguments;
+        this.replyExecutor = replyExecutor;
     }
 
     public Command getCommand() {
@@ -32,4 +47,33 @@ public class CommandEvent {
     public String[] getArgs() {
         return args;
     }
+
+    /**
+     * @return the parsed values of the typed handler parameters, in declaration order
+     */
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Sends a message to the sender on the thread that owns it. Handlers running off the
+     * dispatching thread should reply through this instead of {@code getSender().sendMessage}.
+     */
+    public void reply(String message) {
+        replyExecutor.execute(() -> sender.sendMessage(message));
+    }
+
+    /**
+     * Sends a component to the sender on the thread owning it.
+     */
+    public void reply(Component message) {
+        replyExecutor.execute(() -> sender.sendMessage(message));
+    }
+
+    /**
+     * @return the executor that runs tasks on the thread owning the sender
+     */
+    public Executor getReplyExecutor() {
+        return replyExecutor;
+    }
 }
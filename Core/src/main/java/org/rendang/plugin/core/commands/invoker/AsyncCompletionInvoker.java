@@ -0,0 +1,15 @@
+package org.rendang.plugin.core.commands.invoker;
+
+import org.rendang.plugin.core.commands.event.CommandEvent;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Compiled entry point of an {@link org.rendang.plugin.core.commands.annotation.AutoComplete} method
+ * returning {@code CompletableFuture<List<String>>} (or any {@link CompletionStage}).
+ */
+@FunctionalInterface
+public interface AsyncCompletionInvoker {
+    CompletionStage<List<String>> complete(CommandEvent event) throws Exception;
+}
@@ -0,0 +1,15 @@
+package org.rendang.plugin.core.commands.invoker;
+
+import org.rendang.plugin.core.commands.event.CommandEvent;
+
+/**
+ * Compiled entry point of a {@link org.rendang.plugin.core.commands.annotation.CommandExecute} method.
+ * <p>
+ * Instances are created once per handler by {@link InvokerFactory} when the command is registered,
+ * so dispatching a command is a plain interface call instead of {@code Method.invoke}.
+ * </p>
+ */
+@FunctionalInterface
+public interface CommandInvoker {
+    boolean invoke(CommandEvent event) throws Exception;
+}
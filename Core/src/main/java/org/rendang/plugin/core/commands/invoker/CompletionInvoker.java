@@ -0,0 +1,17 @@
+package org.rendang.plugin.core.commands.invoker;
+
+import org.rendang.plugin.core.commands.event.CommandEvent;
+
+import java.util.List;
+
+/**
+ * Compiled entry point of an {@link org.rendang.plugin.core.commands.annotation.AutoComplete} method.
+ * <p>
+ * Instances are created once per completer by {@link InvokerFactory} when the command is registered,
+ * so a tab-complete request is a plain interface call instead of {@code Method.invoke}.
+ * </p>
+ */
+@FunctionalInterface
+public interface CompletionInvoker {
+    List<String> complete(CommandEvent event) throws Exception;
+}
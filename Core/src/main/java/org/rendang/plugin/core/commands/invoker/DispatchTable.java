@@ -0,0 +1,46 @@
+package org.rendang.plugin.core.commands.invoker;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Invokers generated at compile time for the handler methods of one class.
+ * <p>
+ * The {@code plugin-processor} annotation processor writes an implementation named after the handler
+ * class with the {@link #SUFFIX}, whose invokers call the methods directly and whose
+ * {@link #handlers()} describe the methods, so registering them needs no reflection at all. Without a
+ * table, or when some handlers of the class could not be generated, for example because they are
+ * private, the methods are read and bound at runtime instead.
+ * </p>
+ */
+public interface DispatchTable {
+
+    String SUFFIX = "$RendangDispatch";
+
+    /**
+     * @return the invoker of the {@code CommandExecute} method with the key, or null if it was not generated
+     */
+    CommandInvoker command(Object context, String key);
+
+    /**
+     * @return the invoker of the {@code AutoComplete} method with the key, or null if it was not generated
+     */
+    CompletionInvoker completion(Object context, String key);
+
+    /**
+     * @return the invoker of the asynchronous {@code AutoComplete} method with the key, or null if it was not generated
+     */
+    AsyncCompletionInvoker asyncCompletion(Object context, String key);
+
+    /**
+     * @return every handler method of the class, or null if some of them have no generated invoker
+     */
+    List<HandlerSpec> handlers();
+
+    /**
+     * @return the key identifying the method in a generated table, its name and parameter count
+     */
+    static String key(Method method) {
+        return method.getName() + "/" + method.getParameterCount();
+    }
+}
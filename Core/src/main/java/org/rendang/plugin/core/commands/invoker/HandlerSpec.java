@@ -0,0 +1,89 @@
+package org.rendang.plugin.core.commands.invoker;
+
+import org.rendang.plugin.core.commands.annotation.Arg;
+import org.rendang.plugin.core.commands.annotation.AutoComplete;
+import org.rendang.plugin.core.commands.annotation.CommandExecute;
+import org.rendang.plugin.core.commands.annotation.CommandThread;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * What a command needs to know about one {@link CommandExecute} or {@link AutoComplete} method to
+ * register it: its annotation values and, for commands, its typed parameters.
+ * <p>
+ * A {@link DispatchTable} generated by {@code plugin-processor} lists these for its class, so the
+ * handlers are registered without reading annotations or parameters by reflection. Without a table
+ * they are read from the method with {@link #of(Method, CommandExecute)} and {@link #of(Method, AutoComplete)}.
+ * </p>
+ *
+ * @param key           Identifies the method in its dispatch table, see {@link DispatchTable#key(Method)}
+ * @param command       Subcommand path, for example {@code "group sub"}
+ * @param timeoutMillis Deadline of asynchronous completers, 0 for commands
+ * @param arguments     Typed parameters after the {@code CommandEvent}, empty for completers
+ */
+public record HandlerSpec(String key, Kind kind, String command, String permission, String usages, String description,
+                          CommandThread thread, int maxInFlight, long timeoutMillis, List<Argument> arguments) {
+
+    public enum Kind {
+        COMMAND,
+        COMPLETION,
+        ASYNC_COMPLETION
+    }
+
+    /**
+     * A typed parameter as declared on the command method.
+     *
+     * @param name         The {@link Arg#value()}, or the parameter name
+     * @param defaultValue Raw {@link Arg#defaultValue()}, empty if none
+     */
+    public record Argument(String name, Class<?> type, boolean optional, String defaultValue, boolean greedy,
+                           double min, double max) {
+    }
+
+    public static HandlerSpec command(String key, String command, String permission, String usages, String description,
+                                      CommandThread thread, int maxInFlight, List<Argument> arguments) {
+        return new HandlerSpec(key, Kind.COMMAND, command, permission, usages, description, thread, maxInFlight, 0, arguments);
+    }
+
+    public static HandlerSpec completion(String key, String command, String permission, boolean async, long timeoutMillis) {
+        return new HandlerSpec(key, async ? Kind.ASYNC_COMPLETION : Kind.COMPLETION, command, permission, "", "",
+                CommandThread.CALLER, 0, timeoutMillis, List.of());
+    }
+
+    /**
+     * @return this handler guarded by another permission
+     */
+    public HandlerSpec withPermission(String permission) {
+        return new HandlerSpec(key, kind, command, permission, usages, description, thread, maxInFlight, timeoutMillis, arguments);
+    }
+
+    /**
+     * Reads a command handler by reflection.
+     */
+    public static HandlerSpec of(Method method, CommandExecute commandExecute) {
+        Parameter[] parameters = method.getParameters();
+        List<Argument> arguments = new ArrayList<>();
+        for (int i = 1; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            Arg arg = parameter.getAnnotation(Arg.class);
+            String name = arg != null && !arg.value().isEmpty() ? arg.value() : parameter.getName();
+            arguments.add(arg == null
+                    ? new Argument(name, parameter.getType(), false, "", false, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)
+                    : new Argument(name, parameter.getType(), arg.optional(), arg.defaultValue(), arg.greedy(), arg.min(), arg.max()));
+        }
+        return command(DispatchTable.key(method), commandExecute.command(), commandExecute.permission(), commandExecute.usages(),
+                commandExecute.description(), commandExecute.thread(), commandExecute.maxInFlight(), List.copyOf(arguments));
+    }
+
+    /**
+     * Reads a completion handler by reflection.
+     */
+    public static HandlerSpec of(Method method, AutoComplete autoComplete) {
+        boolean async = CompletionStage.class.isAssignableFrom(method.getReturnType());
+        return completion(DispatchTable.key(method), autoComplete.command(), autoComplete.permission(), async, autoComplete.timeoutMillis());
+    }
+}
@@ -0,0 +1,234 @@
+package org.rendang.plugin.core.commands.invoker;
+
+import org.rendang.plugin.core.commands.event.CommandEvent;
+
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binds annotated command methods to {@link CommandInvoker} and {@link CompletionInvoker} instances.
+ * <p>
+ * The preferred strategy spins a class implementing the invoker interface through
+ * {@link LambdaMetafactory}, which the JIT can inline like any hand-written lambda. When the
+ * declaring class cannot be accessed with full privileges (for example when Core is loaded by a
+ * different class loader than the plugin), the factory falls back to an exact-typed
+ * {@link MethodHandle}, which still avoids the argument array and boxing of {@code Method.invoke}.
+ * </p>
+ * <p>
+ * Both strategies are skipped for methods covered by a {@link DispatchTable} generated at compile
+ * time, whose invokers are plain calls that need no class spinning at registration.
+ * </p>
+ */
+public final class InvokerFactory {
+
+    private static final Logger LOGGER = Logger.getLogger(InvokerFactory.class.getName());
+
+    private static final MethodType COMMAND_TYPE = MethodType.methodType(boolean.class, CommandEvent.class);
+    private static final MethodType COMPLETION_TYPE = MethodType.methodType(List.class, CommandEvent.class);
+    private static final MethodType ASYNC_COMPLETION_TYPE = MethodType.methodType(CompletionStage.class, CommandEvent.class);
+    private static final MethodType TYPED_COMMAND_TYPE = MethodType.methodType(boolean.class, CommandEvent.class, Object[].class);
+
+    private static final ClassValue<DispatchTable> TABLES = new ClassValue<>() {
+        @Override
+        protected DispatchTable computeValue(Class<?> type) {
+            try {
+                Class<?> table = Class.forName(type.getName() + DispatchTable.SUFFIX, true, type.getClassLoader());
+                return (DispatchTable) table.getConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+                return null;
+            }
+        }
+    };
+
+    private InvokerFactory() {
+    }
+
+    /**
+     * @return the dispatch table generated for the class, or null if there is none
+     */
+    public static DispatchTable table(Class<?> type) {
+        return TABLES.get(type);
+    }
+
+    public static CommandInvoker command(Object context, Method method) {
+        if (method.getReturnType() != boolean.class) {
+            throw new IllegalArgumentException("CommandExecute method must return boolean");
+        }
+        DispatchTable table = TABLES.get(method.getDeclaringClass());
+        CommandInvoker generated = table == null ? null : table.command(context, DispatchTable.key(method));
+        if (generated != null) {
+            return generated;
+        }
+        Class<?>[] parameters = method.getParameterTypes();
+        if (parameters.length > 1 && parameters[0] == CommandEvent.class) {
+            return typedCommand(context, method);
+        }
+        checkParameters(method);
+        MethodHandle handle = unreflect(method);
+        CommandInvoker invoker = spin(CommandInvoker.class, "invoke", COMMAND_TYPE, context, method, handle);
+        if (invoker != null) {
+            return invoker;
+        }
+        MethodHandle exact = bind(context, method, handle).asType(COMMAND_TYPE);
+        return event -> {
+            try {
+                return (boolean) exact.invokeExact(event);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        };
+    }
+
+    /**
+     * Binds a handler taking typed parameters after the event. The parsed values are read from
+     * {@link CommandEvent#getArguments()} and spread into the parameters by a method handle.
+     */
+    private static CommandInvoker typedCommand(Object context, Method method) {
+        int count = method.getParameterCount() - 1;
+        MethodHandle exact = bind(context, method, unreflect(method))
+                .asSpreader(Object[].class, count)
+                .asType(TYPED_COMMAND_TYPE);
+        return event -> {
+            try {
+                return (boolean) exact.invokeExact(event, event.getArguments());
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public static CompletionInvoker completion(Object context, Method method) {
+        if (method.getReturnType() != List.class) {
+            throw new IllegalArgumentException("AutoComplete method must return List<String>");
+        }
+        checkParameters(method);
+        DispatchTable table = TABLES.get(method.getDeclaringClass());
+        CompletionInvoker generated = table == null ? null : table.completion(context, DispatchTable.key(method));
+        if (generated != null) {
+            return generated;
+        }
+        MethodHandle handle = unreflect(method);
+        CompletionInvoker invoker = spin(CompletionInvoker.class, "complete", COMPLETION_TYPE, context, method, handle);
+        if (invoker != null) {
+            return invoker;
+        }
+        MethodHandle exact = bind(context, method, handle).asType(COMPLETION_TYPE);
+        return event -> {
+            try {
+                return (List<String>) exact.invokeExact(event);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        };
+    }
+
+    /**
+     * Binds a completer returning a {@link CompletionStage} of suggestions, such as a {@code CompletableFuture}.
+     */
+    @SuppressWarnings("unchecked")
+    public static AsyncCompletionInvoker asyncCompletion(Object context, Method method) {
+        if (!CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+            throw new IllegalArgumentException("Async AutoComplete method must return CompletableFuture<List<String>>");
+        }
+        checkParameters(method);
+        DispatchTable table = TABLES.get(method.getDeclaringClass());
+        AsyncCompletionInvoker generated = table == null ? null : table.asyncCompletion(context, DispatchTable.key(method));
+        if (generated != null) {
+            return generated;
+        }
+        MethodHandle handle = unreflect(method);
+        MethodHandle exact = bind(context, method, handle).asType(ASYNC_COMPLETION_TYPE);
+        AsyncCompletionInvoker invoker = spin(AsyncCompletionInvoker.class, "complete", ASYNC_COMPLETION_TYPE, context, method, handle);
+        if (invoker != null) {
+            return invoker;
+        }
+        return event -> {
+            try {
+                return (CompletionStage<List<String>>) exact.invokeExact(event);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        };
+    }
+
+    private static void checkParameters(Method method) {
+        Class<?>[] parameters = method.getParameterTypes();
+        if (parameters.length != 1 || parameters[0] != CommandEvent.class) {
+            throw new IllegalArgumentException("Command method " + method.getName() + " must take a CommandEvent as its only parameter");
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return lookupFor(method.getDeclaringClass()).unreflect(method);
+        } catch (IllegalAccessException e) {
+            try {
+                method.setAccessible(true);
+                return MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException | RuntimeException inaccessible) {
+                throw new IllegalArgumentException("Command method " + method.getName() + " is not accessible", inaccessible);
+            }
+        }
+    }
+
+    private static MethodHandles.Lookup lookupFor(Class<?> declaringClass) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+    }
+
+    private static MethodHandle bind(Object context, Method method, MethodHandle handle) {
+        return Modifier.isStatic(method.getModifiers()) ? handle : handle.bindTo(context);
+    }
+
+    /**
+     * @return the spun invoker, or null if the method handle fallback has to be used
+     */
+    private static <I> I spin(Class<I> invokerType, String name, MethodType samType, Object context, Method method, MethodHandle handle) {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        MethodHandle factory;
+        try {
+            MethodHandles.Lookup lookup = lookupFor(method.getDeclaringClass());
+            if (!lookup.hasFullPrivilegeAccess()) {
+                LOGGER.fine(() -> "No full privilege access to " + method.getDeclaringClass().getName()
+                        + ", binding " + method.getName() + " through a method handle");
+                return null;
+            }
+            MethodType factoryType = isStatic
+                    ? MethodType.methodType(invokerType)
+                    : MethodType.methodType(invokerType, method.getDeclaringClass());
+            MethodType instantiatedType = isStatic ? handle.type() : handle.type().dropParameterTypes(0, 1);
+            factory = LambdaMetafactory.metafactory(lookup, name, factoryType, samType, handle, instantiatedType)
+                    .getTarget();
+        } catch (LambdaConversionException | IllegalAccessException e) {
+            LOGGER.log(Level.FINE, e, () -> "Could not spin an invoker for " + method.getDeclaringClass().getName()
+                    + "#" + method.getName() + ", binding it through a method handle");
+            return null;
+        }
+        try {
+            Object invoker = isStatic ? factory.invoke() : factory.invoke(context);
+            return invokerType.cast(invoker);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.rendang.plugin.core.commands.limit;
+
+import org.rendang.plugin.core.config.RendangConfigRecord;
+
+/**
+ * Config records of the {@link CommandLimiter}. Pass this class to {@code RendangConfig.load} to
+ * write them to {@code config.yml}; otherwise the defaults apply. Limiting is off by default and is
+ * turned on with {@code commands.limits.enabled: true}.
+ */
+public final class CommandLimitConfig {
+
+    public static final RendangConfigRecord<Boolean> ENABLED = new RendangConfigRecord<>("commands.limits.enabled", false);
+    public static final RendangConfigRecord<Integer> EXECUTE_BURST = new RendangConfigRecord<>("commands.limits.execute.burst", 5);
+    public static final RendangConfigRecord<Double> EXECUTE_PER_SECOND = new RendangConfigRecord<>("commands.limits.execute.per-second", 1.0);
+    public static final RendangConfigRecord<Integer> COMPLETE_BURST = new RendangConfigRecord<>("commands.limits.complete.burst", 20);
+    public static final RendangConfigRecord<Double> COMPLETE_PER_SECOND = new RendangConfigRecord<>("commands.limits.complete.per-second", 10.0);
+    public static final RendangConfigRecord<Integer> COMPLETION_CACHE_MILLIS = new RendangConfigRecord<>("commands.limits.completion-cache-millis", 1500);
+    public static final RendangConfigRecord<String> REJECTED_MESSAGE = new RendangConfigRecord<>("commands.limits.message",
+            "You are using commands too quickly, please slow down.");
+
+    private CommandLimitConfig() {
+    }
+}
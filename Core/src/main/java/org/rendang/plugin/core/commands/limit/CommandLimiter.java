@@ -0,0 +1,219 @@
+package org.rendang.plugin.core.commands.limit;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.rendang.plugin.core.config.RendangConfig;
+import org.rendang.plugin.core.config.RendangConfigRecord;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Token-bucket rate limits for command execution and tab completion, plus a short-lived completion cache.
+ * <p>
+ * Every player gets one bucket per command handler and kind, refilled continuously at the configured
+ * rate up to the burst size. Non-player senders and players with {@value #BYPASS_PERMISSION} are never
+ * limited. Limits are read from {@link CommandLimitConfig} into an immutable snapshot by
+ * {@link #refresh()}, which {@code RendangPlugin} calls on the main thread whenever the config is loaded,
+ * reloaded or edited, so checks never touch the Bukkit configuration.
+ * </p>
+ * <p>
+ * The completion cache keeps the last unfiltered result of each player. A request for the same handler
+ * and preceding arguments, whose last argument extends the cached one, is answered from the cache
+ * until it expires instead of calling the handler again.
+ * </p>
+ * <p>
+ * Registered as a listener by {@code RendangPlugin}, so the state of a player is dropped when they quit.
+ * </p>
+ */
+public final class CommandLimiter implements Listener {
+
+    public static final String BYPASS_PERMISSION = "rendang.limits.bypass";
+    private static final int MAX_IDLE_BUCKETS = 4096;
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Supplier<? extends RendangConfig> config;
+    private final Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<Object, CachedCompletion> completions = new ConcurrentHashMap<>();
+    private volatile Function<CommandSender, String> rejectionMessage;
+    private volatile Limits limits;
+
+    /**
+     * @param config Supplies the current config, for example {@code plugin::getPluginConfig}; may supply null before loading
+     */
+    public CommandLimiter(Supplier<? extends RendangConfig> config) {
+        this.config = config;
+        this.rejectionMessage = sender -> limits().message;
+    }
+
+    /**
+     * Reads the limits from the current config again.
+     */
+    public void refresh() {
+        limits = Limits.of(config.get());
+    }
+
+    /**
+     * Replaces the message sent when an execution is rejected, for example with a localized
+     * {@code RendangMessage.parse(sender, ...)}.
+     */
+    public void setRejectionMessage(Function<CommandSender, String> rejectionMessage) {
+        this.rejectionMessage = rejectionMessage;
+    }
+
+    public String getRejectionMessage(CommandSender sender) {
+        return rejectionMessage.apply(sender);
+    }
+
+    /**
+     * Takes a token for executing the handler.
+     *
+     * @param handler Identifies the command handler
+     * @return false if the sender has exceeded the execution rate
+     */
+    public boolean tryExecute(CommandSender sender, Object handler) {
+        Limits current = limits();
+        return tryAcquire(sender, handler, false, current, current.executeBurst, current.executePerSecond);
+    }
+
+    /**
+     * Takes a token for calling the completion handler.
+     *
+     * @return false if the sender has exceeded the completion rate
+     */
+    public boolean tryComplete(CommandSender sender, Object handler) {
+        Limits current = limits();
+        return tryAcquire(sender, handler, true, current, current.completeBurst, current.completePerSecond);
+    }
+
+    /**
+     * @return the unfiltered result cached for the handler, if the arguments before the last one are the
+     * same and the last one extends the cached prefix, or null
+     */
+    public List<String> getCachedCompletion(CommandSender sender, Object handler, String[] args) {
+        if (!(sender instanceof Player player)) return null;
+        CachedCompletion cached = completions.get(player.getUniqueId());
+        if (cached == null || cached.handler != handler) return null;
+        if (System.nanoTime() - cached.expiresAt >= 0) {
+            completions.remove(player.getUniqueId(), cached);
+            return null;
+        }
+        int last = args.length - 1;
+        if (last != cached.args.length - 1) return null;
+        for (int i = 0; i < last; i++) {
+            if (!args[i].equalsIgnoreCase(cached.args[i])) return null;
+        }
+        String prefix = cached.args[last];
+        return args[last].regionMatches(true, 0, prefix, 0, prefix.length()) ? cached.result : null;
+    }
+
+    /**
+     * Caches the unfiltered result of a completion handler for the sender.
+     */
+    public void cacheCompletion(CommandSender sender, Object handler, String[] args, List<String> result) {
+        Limits current = limits();
+        if (!(sender instanceof Player player) || !current.enabled) return;
+        int millis = current.completionCacheMillis;
+        if (millis <= 0) return;
+        long now = System.nanoTime();
+        if (completions.size() >= MAX_IDLE_BUCKETS) {
+            completions.values().removeIf(expired -> now - expired.expiresAt >= 0);
+        }
+        completions.put(player.getUniqueId(), new CachedCompletion(handler, args.clone(), List.copyOf(result),
+                now + TimeUnit.MILLISECONDS.toNanos(millis)));
+    }
+
+    /**
+     * Drops the buckets and cached completions of a player, for example when they quit.
+     */
+    public void forget(Player player) {
+        completions.remove(player.getUniqueId());
+        buckets.keySet().removeIf(key -> key.sender.equals(player.getUniqueId()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        forget(event.getPlayer());
+    }
+
+    private boolean tryAcquire(CommandSender sender, Object handler, boolean completion, Limits current,
+                               int burst, double perSecond) {
+        if (!(sender instanceof Player player) || !current.enabled || sender.hasPermission(BYPASS_PERMISSION)) {
+            return true;
+        }
+        long now = System.nanoTime();
+        Key key = new Key(player.getUniqueId(), handler, completion);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= MAX_IDLE_BUCKETS) {
+                buckets.values().removeIf(idle -> now - idle.updated > IDLE_NANOS);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(burst, now));
+        }
+        return bucket.tryAcquire(now, burst, perSecond);
+    }
+
+    /**
+     * @return the snapshot, read again if the config instance was replaced without a refresh
+     */
+    private Limits limits() {
+        Limits current = limits;
+        RendangConfig source = config.get();
+        if (current == null || current.source != source) {
+            current = Limits.of(source);
+            limits = current;
+        }
+        return current;
+    }
+
+    private record Limits(RendangConfig source, boolean enabled, int executeBurst, double executePerSecond,
+                          int completeBurst, double completePerSecond, int completionCacheMillis, String message) {
+
+        static Limits of(RendangConfig config) {
+            return new Limits(config,
+                    get(config, CommandLimitConfig.ENABLED),
+                    get(config, CommandLimitConfig.EXECUTE_BURST),
+                    get(config, CommandLimitConfig.EXECUTE_PER_SECOND),
+                    get(config, CommandLimitConfig.COMPLETE_BURST),
+                    get(config, CommandLimitConfig.COMPLETE_PER_SECOND),
+                    get(config, CommandLimitConfig.COMPLETION_CACHE_MILLIS),
+                    get(config, CommandLimitConfig.REJECTED_MESSAGE));
+        }
+
+        private static <V> V get(RendangConfig config, RendangConfigRecord<V> record) {
+            return config != null ? config.get(record) : record.defaultValue;
+        }
+    }
+
+    private record Key(Object sender, Object handler, boolean completion) {
+    }
+
+    private record CachedCompletion(Object handler, String[] args, List<String> result, long expiresAt) {
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private volatile long updated;
+
+        private Bucket(int burst, long now) {
+            this.tokens = burst;
+            this.updated = now;
+        }
+
+        private synchronized boolean tryAcquire(long now, int burst, double perSecond) {
+            tokens = Math.min(burst, tokens + (now - updated) / 1_000_000_000.0 * perSecond);
+            updated = now;
+            if (tokens < 1) return false;
+            tokens--;
+            return true;
+        }
+    }
+}
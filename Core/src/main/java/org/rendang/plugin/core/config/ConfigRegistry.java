@@ -0,0 +1,21 @@
+package org.rendang.plugin.core.config;
+
+import java.util.List;
+
+/**
+ * The config records declared on one class, listed at compile time.
+ * <p>
+ * The {@code plugin-processor} annotation processor writes an implementation named after the class
+ * declaring the records with the {@link #SUFFIX}. {@link RendangConfig} reads the records from it
+ * instead of scanning the class fields when it is present.
+ * </p>
+ */
+public interface ConfigRegistry {
+
+    String SUFFIX = "$RendangRecords";
+
+    /**
+     * @return the static records of the class in declaration order
+     */
+    List<RendangConfigRecord<?>> records();
+}
@@ -1,43 +1,359 @@
 package org.rendang.plugin.core.config;
 
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.Plugin;
+import org.rendang.plugin.core.io.SidecarCache;
+import org.rendang.plugin.core.io.YamlFiles;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * Configuration backed by the plugin's {@code config.yml}.
+ * <p>
+ * Every {@link RendangConfigRecord} declared on the config type class is resolved once when the
+ * config is created into an immutable array indexed by the record's position in this config, so
+ * {@link #get} is a volatile read, an identity lookup and an array index. Values that do not match the record type are rejected while
+ * resolving and replaced by the record default.
+ * </p>
+ * <p>
+ * The instance parses {@code config.yml} into its own {@link FileConfiguration}, detached from the
+ * plugin's, so building a new instance off the main thread never changes what the plugin or an
+ * existing instance reads or writes. {@code RendangPlugin} serves it from {@code getConfig()} once the
+ * instance is published.
+ * </p>
+ * <p>
+ * {@link #load} also stores the resolved values in a binary {@link SidecarCache}. On the next start,
+ * if {@code config.yml} and the declared records are unchanged, the snapshot is read from the cache
+ * and the YAML is only parsed once something needs the plugin configuration itself.
+ * </p>
+ */
 public class RendangConfig{
 
+    private static final Object REJECTED = new Object();
+    private static final ClassValue<ConfigRegistry> REGISTRIES = new ClassValue<>() {
+        @Override
+        protected ConfigRegistry computeValue(Class<?> type) {
+            try {
+                Class<?> registry = Class.forName(type.getName() + ConfigRegistry.SUFFIX, true, type.getClassLoader());
+                return (ConfigRegistry) registry.getConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+                return null;
+            }
+        }
+    };
+
     private final Plugin plugin;
+    private FileConfiguration config;
+    private final List<RendangConfigRecord<?>> records = new ArrayList<>();
+    private final Map<RendangConfigRecord<?>, Integer> slots = new IdentityHashMap<>();
+    private volatile Object[] snapshot;
+
+    /**
+     * @param configTypeClasses Classes declaring the records as static fields, for example the plugin's
+     *                          own config type and framework records such as {@code CommandLimitConfig}
+     */
+    public RendangConfig(Plugin plugin, Class<?>... configTypeClasses) {
+        this(plugin, scan(configTypeClasses), null);
+    }
 
-    public RendangConfig(Plugin plugin, Class<?> configTypeClass) {
+    private RendangConfig(Plugin plugin, List<RendangConfigRecord<?>> records, Object[] cached) {
         this.plugin = plugin;
-        var config = plugin.getConfig();
-        config.options().copyDefaults(true);
-        for (var field : configTypeClass.getDeclaredFields()) {
-            try {
-                var record = field.get(null);
-                if(record instanceof RendangConfigRecord<?> configRecord){
-                    config.addDefault(configRecord.path, configRecord.defaultValue);
+        this.records.addAll(records);
+        for (int i = 0; i < records.size(); i++) {
+            slots.put(records.get(i), i);
+        }
+        if (cached == null) {
+            config();
+            refresh();
+        } else {
+            snapshot = cached;
+        }
+    }
+
+    private static List<RendangConfigRecord<?>> scan(Class<?>[] configTypeClasses) {
+        List<RendangConfigRecord<?>> records = new ArrayList<>();
+        Set<RendangConfigRecord<?>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Class<?> configTypeClass : configTypeClasses) {
+            ConfigRegistry registry = REGISTRIES.get(configTypeClass);
+            if (registry != null) {
+                for (var configRecord : registry.records()) {
+                    if (seen.add(configRecord)) records.add(configRecord);
                 }
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
+                continue;
+            }
+            for (var field : configTypeClass.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) continue;
+                try {
+                    var record = field.get(null);
+                    if(record instanceof RendangConfigRecord<?> configRecord && seen.add(configRecord)){
+                        records.add(configRecord);
+                    }
+                } catch (IllegalAccessException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return the configuration with the record defaults added, parsed on first use when the values
+     * were restored from the binary cache
+     */
+    private synchronized FileConfiguration config() {
+        if (config == null) {
+            FileConfiguration config = YamlConfiguration.loadConfiguration(new File(plugin.getDataFolder(), "config.yml"));
+            InputStream defaults = plugin.getResource("config.yml");
+            if (defaults != null) {
+                config.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(defaults, StandardCharsets.UTF_8)));
+            }
+            config.options().copyDefaults(true);
+            for (var record : records) {
+                config.addDefault(record.path, record.defaultValue);
+            }
+            this.config = config;
+        }
+        return config;
+    }
+
+    /**
+     * Re-resolves every record from the plugin configuration and publishes a new snapshot.
+     */
+    public synchronized void refresh() {
+        Object[] values = new Object[records.size()];
+        for (int slot = 0; slot < values.length; slot++) {
+            var record = records.get(slot);
+            Object value = coerce(record, config().get(record.path, record.defaultValue));
+            if (value == REJECTED) {
+                plugin.getLogger().log(Level.WARNING, "Config value at '" + record.path + "' is not a "
+                        + record.type.getSimpleName() + ", using the default value instead");
+                value = record.defaultValue;
             }
+            values[slot] = value;
+        }
+        snapshot = values;
+    }
+
+    /**
+     * Takes the record values from a freshly loaded copy of the file and publishes a new snapshot
+     * holding only the values that differ, leaving the snapshot untouched when nothing changed.
+     * Missing values fall back to the record default and keys that are not records are ignored.
+     * The plugin configuration is left untouched, so this may run off the main thread; pass the
+     * result to {@link #store} on the main thread to keep it in sync.
+     *
+     * @return the records whose resolved value changed
+     */
+    public synchronized List<RendangConfigRecord<?>> apply(ConfigurationSection loaded) {
+        Object[] values = snapshot;
+        Object[] next = null;
+        List<RendangConfigRecord<?>> changed = new ArrayList<>();
+        for (int slot = 0; slot < values.length; slot++) {
+            var record = records.get(slot);
+            Object value = coerce(record, loaded.get(record.path, record.defaultValue));
+            if (value == REJECTED) {
+                plugin.getLogger().log(Level.WARNING, "Config value at '" + record.path + "' is not a "
+                        + record.type.getSimpleName() + ", using the default value instead");
+                value = record.defaultValue;
+            }
+            if (Objects.equals(values[slot], value)) continue;
+            if (next == null) next = values.clone();
+            next[slot] = value;
+            changed.add(record);
+        }
+        if (next != null) snapshot = next;
+        return changed;
+    }
+
+    /**
+     * Copies the values of the changed records from the loaded file into the plugin configuration,
+     * so a later {@link #save()} keeps them. Must run on the main thread.
+     *
+     * @param changed The records returned by {@link #apply}
+     */
+    public synchronized void store(ConfigurationSection loaded, List<RendangConfigRecord<?>> changed) {
+        for (var record : changed) {
+            Object raw = loaded.get(record.path, record.defaultValue);
+            config().set(record.path, coerce(record, raw) == REJECTED ? record.defaultValue : raw);
         }
     }
 
-    public <V> void set(RendangConfigRecord<V> configRecord, Object value) {
-        plugin.getConfig().set(configRecord.path, value);
+    public synchronized <V> void set(RendangConfigRecord<V> configRecord, Object value) {
+        Object coerced = coerce(configRecord, value);
+        if (coerced == REJECTED) {
+            throw new IllegalArgumentException("Config value at '" + configRecord.path + "' must be a " + configRecord.type.getSimpleName());
+        }
+        config().set(configRecord.path, value);
+        Integer slot = slots.get(configRecord);
+        if (slot != null) {
+            Object[] values = snapshot.clone();
+            values[slot] = coerced == null ? configRecord.defaultValue : coerced;
+            snapshot = values;
+        }
     }
 
-    public static RendangConfig load(Plugin plugin, Class<?>  tClass) {
-        plugin.reloadConfig();
-        var rendangConfig = new RendangConfig(plugin, tClass);
+    /**
+     * Loads the config from {@code config.yml}, or from its binary cache if neither the file nor the
+     * declared records changed since the cache was written. A cached start skips parsing the YAML until
+     * the plugin configuration is actually needed, for example by {@link #set} or {@link #save()}.
+     */
+    public static RendangConfig load(Plugin plugin, Class<?>... tClasses) {
+        List<RendangConfigRecord<?>> records = scan(tClasses);
+        Path file = new File(plugin.getDataFolder(), "config.yml").toPath();
+        byte[] fingerprint = fingerprint(records);
+        Object[] cached = readCache(file, records, fingerprint);
+        if (cached != null) {
+            return new RendangConfig(plugin, records, cached);
+        }
+        var rendangConfig = new RendangConfig(plugin, records, null);
         rendangConfig.save();
+        rendangConfig.writeCache(file, fingerprint);
         return rendangConfig;
     }
 
+    /**
+     * @return the configuration parsed from {@code config.yml} with the record defaults added
+     */
+    public FileConfiguration getConfiguration() {
+        return config();
+    }
+
     public void save() {
-        plugin.saveConfig();
+        FileConfiguration config;
+        synchronized (this) {
+            config = this.config;
+        }
+        if (config == null) return;
+        try {
+            YamlFiles.saveIfChanged(config, new File(plugin.getDataFolder(), "config.yml"));
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not save config to config.yml", e);
+        }
+    }
+
+    private static byte[] fingerprint(List<RendangConfigRecord<?>> records) {
+        StringBuilder schema = new StringBuilder();
+        for (var record : records) {
+            schema.append(record.path).append('\0').append(record.type.getName()).append('\0')
+                    .append(record.defaultValue).append('\n');
+        }
+        return SidecarCache.fingerprint(schema.toString());
+    }
+
+    /**
+     * @return the snapshot stored in the cache, or null if there is no valid cache
+     */
+    private static Object[] readCache(Path file, List<RendangConfigRecord<?>> records, byte[] fingerprint) {
+        ByteBuffer buffer = SidecarCache.read(file, fingerprint);
+        if (buffer == null) return null;
+        try {
+            if (buffer.getInt() != records.size()) return null;
+            Object[] values = new Object[records.size()];
+            for (int slot = 0; slot < values.length; slot++) {
+                if (!SidecarCache.readString(buffer).equals(records.get(slot).path)) return null;
+                values[slot] = SidecarCache.readValue(buffer);
+            }
+            return values;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the resolved values next to the file, unless a value has no binary form.
+     */
+    private void writeCache(Path file, byte[] fingerprint) {
+        try {
+            Object[] values = snapshot;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(records.size());
+            for (int slot = 0; slot < values.length; slot++) {
+                SidecarCache.writeString(out, records.get(slot).path);
+                if (!SidecarCache.writeValue(out, values[slot])) {
+                    SidecarCache.invalidate(file);
+                    return;
+                }
+            }
+            if (Files.isRegularFile(file)) SidecarCache.write(file, fingerprint, bytes.toByteArray());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write the config cache", e);
+        }
     }
 
+    @SuppressWarnings("unchecked")
     public <V> V get(RendangConfigRecord<V> configRecord) {
-        return (V) plugin.getConfig().get(configRecord.path, configRecord.defaultValue);
+        Integer slot = slots.get(configRecord);
+        if (slot != null) return (V) snapshot[slot];
+        Object value = coerce(configRecord, config().get(configRecord.path, configRecord.defaultValue));
+        return value == REJECTED ? configRecord.defaultValue : (V) value;
+    }
+
+    /**
+     * @return the records declared on the config type classes
+     */
+    public List<RendangConfigRecord<?>> getRecords() {
+        return Collections.unmodifiableList(records);
+    }
+
+    /**
+     * Converts a raw configuration value to the record type, widening numbers where it is lossless.
+     *
+     * @return the converted value, or {@link #REJECTED} if the value cannot represent the record type
+     */
+    private static Object coerce(RendangConfigRecord<?> record, Object value) {
+        Class<?> type = record.type;
+        if (value == null || type == Object.class || type.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Number number) {
+            boolean integral = value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+            if (type == Double.class) return number.doubleValue();
+            if (type == Float.class) return number.floatValue();
+            if (integral) {
+                long l = number.longValue();
+                if (type == Long.class) return l;
+                if (type == Integer.class && l == (int) l) return (int) l;
+                if (type == Short.class && l == (short) l) return (short) l;
+                if (type == Byte.class && l == (byte) l) return (byte) l;
+            }
+        }
+        if (type == String.class && (value instanceof Number || value instanceof Boolean || value instanceof Character)) {
+            return String.valueOf(value);
+        }
+        if (type == Map.class && value instanceof ConfigurationSection section) {
+            return toMap(section);
+        }
+        return REJECTED;
+    }
+
+    /**
+     * @return the keys and values of the section, with nested sections converted to maps as well
+     */
+    private static Map<String, Object> toMap(ConfigurationSection section) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        section.getValues(false).forEach((key, value) ->
+                map.put(key, value instanceof ConfigurationSection child ? toMap(child) : value));
+        return map;
     }
 }
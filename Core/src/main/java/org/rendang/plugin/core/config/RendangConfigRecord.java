@@ -1,11 +1,32 @@
 package org.rendang.plugin.core.config;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 public class RendangConfigRecord<T> {
     public final String path;
     public final T defaultValue;
+    /**
+     * The type every loaded value is checked against. Inferred from the default value unless given explicitly.
+     */
+    public final Class<?> type;
 
     public RendangConfigRecord(String path, T defaultValue) {
+        this(path, defaultValue, typeOf(defaultValue));
+    }
+
+    public RendangConfigRecord(String path, T defaultValue, Class<?> type) {
         this.path = path;
         this.defaultValue = defaultValue;
+        this.type = type;
+    }
+
+    private static Class<?> typeOf(Object value) {
+        if (value == null) return Object.class;
+        if (value instanceof List<?>) return List.class;
+        if (value instanceof Map<?, ?>) return Map.class;
+        if (value instanceof Set<?>) return Set.class;
+        return value.getClass();
     }
 }
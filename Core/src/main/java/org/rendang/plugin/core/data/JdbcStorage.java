@@ -0,0 +1,150 @@
+package org.rendang.plugin.core.data;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * {@link PlayerDataStorage} in one key-value table of an SQL database, accessed with plain JDBC.
+ * <p>
+ * Every value is a row keyed by player UUID and record key, so adding records never needs a
+ * migration. {@link #saveAll} writes all changes of a flush with one batched upsert and one batched
+ * delete in a single transaction. The driver is not bundled: Paper ships the SQLite driver, an H2
+ * or MySQL driver has to be shaded into the plugin.
+ * </p>
+ */
+public final class JdbcStorage implements PlayerDataStorage {
+
+    private static final String DEFAULT_TABLE = "player_data";
+
+    private final Connection connection;
+    private final String selectSql;
+    private final String upsertSql;
+    private final String deleteSql;
+
+    /**
+     * @param url   JDBC URL of a SQLite, H2, MySQL or MariaDB database
+     * @param table Name of the table, created if it does not exist
+     * @throws IllegalArgumentException if the database type or the table name is not supported
+     */
+    public JdbcStorage(String url, String user, String password, String table) throws SQLException {
+        if (!table.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid table name " + table);
+        }
+        if (url.startsWith("jdbc:sqlite:")) {
+            upsertSql = "INSERT INTO " + table + " (uuid, data_key, data_value) VALUES (?, ?, ?)"
+                    + " ON CONFLICT (uuid, data_key) DO UPDATE SET data_value = excluded.data_value";
+        } else if (url.startsWith("jdbc:h2:")) {
+            upsertSql = "MERGE INTO " + table + " (uuid, data_key, data_value) KEY (uuid, data_key) VALUES (?, ?, ?)";
+        } else if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+            upsertSql = "INSERT INTO " + table + " (uuid, data_key, data_value) VALUES (?, ?, ?)"
+                    + " ON DUPLICATE KEY UPDATE data_value = VALUES(data_value)";
+        } else {
+            throw new IllegalArgumentException("Unsupported database " + url);
+        }
+        selectSql = "SELECT data_key, data_value FROM " + table + " WHERE uuid = ?";
+        deleteSql = "DELETE FROM " + table + " WHERE uuid = ? AND data_key = ?";
+        connection = user == null ? DriverManager.getConnection(url) : DriverManager.getConnection(url, user, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "uuid CHAR(36) NOT NULL, "
+                    + "data_key VARCHAR(255) NOT NULL, "
+                    + "data_value VARCHAR(8192), "
+                    + "PRIMARY KEY (uuid, data_key))");
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a SQLite database file, for example {@code new File(getDataFolder(), "players.db")}.
+     */
+    public static JdbcStorage sqlite(File file) throws SQLException {
+        loadDriver("org.sqlite.JDBC");
+        return new JdbcStorage("jdbc:sqlite:" + file.getAbsolutePath(), null, null, DEFAULT_TABLE);
+    }
+
+    /**
+     * Opens an embedded H2 database, for example {@code new File(getDataFolder(), "players")}.
+     * H2 adds the {@code .mv.db} extension itself.
+     */
+    public static JdbcStorage h2(File file) throws SQLException {
+        loadDriver("org.h2.Driver");
+        return new JdbcStorage("jdbc:h2:" + file.getAbsolutePath(), null, null, DEFAULT_TABLE);
+    }
+
+    /**
+     * Registers a driver shaded into the plugin, which {@link DriverManager} does not discover on its own
+     * since it only scans the server class path.
+     */
+    private static void loadDriver(String className) {
+        try {
+            Class.forName(className, true, JdbcStorage.class.getClassLoader());
+        } catch (ClassNotFoundException ignored) {
+            // DriverManager reports the missing driver
+        }
+    }
+
+    @Override
+    public synchronized Map<String, String> load(UUID uniqueId) throws SQLException {
+        Map<String, String> values = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+            statement.setString(1, uniqueId.toString());
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    values.put(result.getString(1), result.getString(2));
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized void saveAll(Map<UUID, Map<String, String>> changes) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement upsert = connection.prepareStatement(upsertSql);
+             PreparedStatement delete = connection.prepareStatement(deleteSql)) {
+            int upserts = 0;
+            int deletes = 0;
+            for (Map.Entry<UUID, Map<String, String>> player : changes.entrySet()) {
+                String uuid = player.getKey().toString();
+                for (Map.Entry<String, String> value : player.getValue().entrySet()) {
+                    if (value.getValue() == null) {
+                        delete.setString(1, uuid);
+                        delete.setString(2, value.getKey());
+                        delete.addBatch();
+                        deletes++;
+                    } else {
+                        upsert.setString(1, uuid);
+                        upsert.setString(2, value.getKey());
+                        upsert.setString(3, value.getValue());
+                        upsert.addBatch();
+                        upserts++;
+                    }
+                }
+            }
+            if (upserts > 0) upsert.executeBatch();
+            if (deletes > 0) delete.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        connection.close();
+    }
+}
@@ -0,0 +1,92 @@
+package org.rendang.plugin.core.data;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The cached values of one player, indexed by record slot.
+ * <p>
+ * Reads and writes are cheap and safe from any thread. A write only marks the record dirty; the
+ * {@link PlayerDataStore} writes dirty records to storage in batches off the main thread.
+ * </p>
+ */
+public final class PlayerData {
+
+    private final UUID uniqueId;
+    private final PlayerDataStore store;
+    private final Object[] values;
+    private final BitSet dirty = new BitSet();
+    private volatile long lastAccess = System.nanoTime();
+
+    PlayerData(UUID uniqueId, PlayerDataStore store, Object[] values) {
+        this.uniqueId = uniqueId;
+        this.store = store;
+        this.values = values;
+    }
+
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(PlayerDataRecord<T> record) {
+        int slot = store.checkRecord(record);
+        lastAccess = System.nanoTime();
+        synchronized (this) {
+            return (T) values[slot];
+        }
+    }
+
+    /**
+     * Changes the value and schedules it to be written. Setting null restores the default and removes
+     * the stored value.
+     */
+    public <T> void set(PlayerDataRecord<T> record, T value) {
+        int slot = store.checkRecord(record);
+        lastAccess = System.nanoTime();
+        synchronized (this) {
+            values[slot] = value == null ? record.defaultValue : value;
+            dirty.set(slot);
+        }
+        store.markDirty(this);
+    }
+
+    /**
+     * @return whether some values have not been written to storage yet
+     */
+    public synchronized boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Encodes the dirty values and clears their dirty marks.
+     *
+     * @return the changed values by key, null for values to delete
+     */
+    synchronized Map<String, String> drainChanges() {
+        Map<String, String> changes = new HashMap<>();
+        for (int slot = dirty.nextSetBit(0); slot >= 0; slot = dirty.nextSetBit(slot + 1)) {
+            PlayerDataRecord<?> record = store.recordAt(slot);
+            Object value = values[slot];
+            changes.put(record.key, value == null || value.equals(record.defaultValue) ? null : record.encode(value));
+        }
+        dirty.clear();
+        return changes;
+    }
+
+    /**
+     * Marks the keys dirty again after a failed write, so their current values are written next time.
+     */
+    synchronized void restoreChanges(Map<String, String> changes) {
+        for (String key : changes.keySet()) {
+            PlayerDataRecord<?> record = store.recordFor(key);
+            if (record != null) dirty.set(store.checkRecord(record));
+        }
+    }
+}
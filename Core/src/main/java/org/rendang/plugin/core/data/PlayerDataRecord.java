@@ -0,0 +1,64 @@
+package org.rendang.plugin.core.data;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * A typed value stored per player, declared as a static field like a {@code RendangConfigRecord}:
+ * <pre>{@code
+ * public static final PlayerDataRecord<Integer> KILLS = new PlayerDataRecord<>("kills", 0);
+ * }</pre>
+ * Values are stored as text under the key. Strings, numbers, booleans and UUIDs are converted
+ * automatically; other types need an explicit encoder and decoder.
+ */
+public class PlayerDataRecord<T> {
+    public final String key;
+    public final T defaultValue;
+    public final Class<T> type;
+    private final Function<T, String> encoder;
+    private final Function<String, T> decoder;
+
+    @SuppressWarnings("unchecked")
+    public PlayerDataRecord(String key, T defaultValue) {
+        this(key, defaultValue, (Class<T>) defaultValue.getClass(), String::valueOf, decoderFor((Class<T>) defaultValue.getClass()));
+    }
+
+    public PlayerDataRecord(String key, T defaultValue, Class<T> type, Function<T, String> encoder, Function<String, T> decoder) {
+        this.key = Objects.requireNonNull(key, "key");
+        this.defaultValue = defaultValue;
+        this.type = type;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    String encode(Object value) {
+        return value == null ? null : encoder.apply(type.cast(value));
+    }
+
+    /**
+     * @return the decoded value, or the default if the stored text is not a valid value
+     */
+    T decode(String value) {
+        if (value == null) return defaultValue;
+        try {
+            return decoder.apply(value);
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Function<String, T> decoderFor(Class<T> type) {
+        Function<String, ?> decoder;
+        if (type == String.class) decoder = Function.identity();
+        else if (type == Integer.class) decoder = Integer::valueOf;
+        else if (type == Long.class) decoder = Long::valueOf;
+        else if (type == Double.class) decoder = Double::valueOf;
+        else if (type == Float.class) decoder = Float::valueOf;
+        else if (type == Boolean.class) decoder = Boolean::valueOf;
+        else if (type == UUID.class) decoder = UUID::fromString;
+        else throw new IllegalArgumentException("Player data of type " + type.getName() + " needs an encoder and decoder");
+        return (Function<String, T>) decoder;
+    }
+}
@@ -0,0 +1,27 @@
+package org.rendang.plugin.core.data;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Where {@link PlayerDataStore} reads and writes player values. Methods are called from the async
+ * scheduler, and from the disabling thread for the final flush, so implementations must be thread-safe.
+ *
+ * @see JdbcStorage
+ */
+public interface PlayerDataStorage extends AutoCloseable {
+
+    /**
+     * @return the stored values of the player by record key, empty for a new player
+     */
+    Map<String, String> load(UUID uniqueId) throws Exception;
+
+    /**
+     * Writes the changes of several players in one batch. A null value deletes the key.
+     * Either every change is written or, when an exception is thrown, none is.
+     */
+    void saveAll(Map<UUID, Map<String, String>> changes) throws Exception;
+
+    @Override
+    void close() throws Exception;
+}
@@ -0,0 +1,282 @@
+package org.rendang.plugin.core.data;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.rendang.plugin.core.scheduler.RendangFuture;
+import org.rendang.plugin.core.scheduler.RendangScheduler;
+import org.rendang.plugin.core.scheduler.RendangTask;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Per-player data cached in memory and written behind to a {@link PlayerDataStorage}.
+ * <p>
+ * A player's values are loaded on the async scheduler when they join and evicted when they quit.
+ * Data loaded with {@link #load(UUID)} for a player who is not online is evicted once it has not
+ * been used for the idle TTL. Changes only mark records dirty; a repeating async task collects the
+ * dirty records of every player and writes them in one batch, so no storage call ever runs on the
+ * main thread. Evicted players whose changes were not written yet stay queued, and are reused if
+ * they come back before the write finished, so a quick rejoin never reads stale values.
+ * </p>
+ * <p>
+ * {@link #close()} writes everything still dirty on the calling thread before closing the storage.
+ * </p>
+ */
+public final class PlayerDataStore implements Listener {
+
+    public static final long DEFAULT_FLUSH_PERIOD_TICKS = 100;
+    public static final long DEFAULT_IDLE_TTL_MINUTES = 10;
+
+    private final RendangScheduler scheduler;
+    private final PlayerDataStorage storage;
+    private final PlayerDataRecord<?>[] records;
+    private final Map<PlayerDataRecord<?>, Integer> slots = new IdentityHashMap<>();
+    private final Map<String, PlayerDataRecord<?>> recordsByKey = new HashMap<>();
+    private final long idleTtlNanos;
+    private final Map<UUID, PlayerData> cache = new ConcurrentHashMap<>();
+    private final Map<UUID, RendangFuture<PlayerData>> loading = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerData> dirty = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerData> writing = new ConcurrentHashMap<>();
+    private final Set<UUID> online = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    private final RendangTask flushTask;
+    private volatile boolean closed;
+
+    /**
+     * @param recordTypeClasses Classes declaring the {@link PlayerDataRecord}s as static fields
+     */
+    public PlayerDataStore(RendangScheduler scheduler, PlayerDataStorage storage, Class<?>... recordTypeClasses) {
+        this(scheduler, storage, DEFAULT_FLUSH_PERIOD_TICKS, DEFAULT_IDLE_TTL_MINUTES, TimeUnit.MINUTES, recordTypeClasses);
+    }
+
+    /**
+     * @param flushPeriodTicks Ticks between two batched writes of the dirty records
+     * @param idleTtl          Time after which data of a player who is not online is evicted when unused
+     */
+    public PlayerDataStore(RendangScheduler scheduler, PlayerDataStorage storage, long flushPeriodTicks,
+                           long idleTtl, TimeUnit unit, Class<?>... recordTypeClasses) {
+        this.scheduler = scheduler;
+        this.storage = storage;
+        this.idleTtlNanos = unit.toNanos(idleTtl);
+        List<PlayerDataRecord<?>> declared = scan(recordTypeClasses);
+        for (PlayerDataRecord<?> record : declared) {
+            if (recordsByKey.put(record.key, record) != null) {
+                throw new IllegalArgumentException("Player data key '" + record.key + "' is declared twice");
+            }
+            slots.put(record, slots.size());
+        }
+        this.records = declared.toArray(new PlayerDataRecord<?>[0]);
+        this.flushTask = scheduler.runTaskTimerAsynchronously(
+                RendangScheduler.named("PlayerDataStore flush", this::flushAndEvict), flushPeriodTicks, flushPeriodTicks);
+    }
+
+    private static List<PlayerDataRecord<?>> scan(Class<?>[] recordTypeClasses) {
+        List<PlayerDataRecord<?>> records = new ArrayList<>();
+        for (Class<?> recordTypeClass : recordTypeClasses) {
+            for (var field : recordTypeClass.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) continue;
+                try {
+                    if (field.get(null) instanceof PlayerDataRecord<?> record) {
+                        records.add(record);
+                    }
+                } catch (IllegalAccessException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return the cached data of the player, or null if it is not loaded yet
+     */
+    public PlayerData get(UUID uniqueId) {
+        return cache.get(uniqueId);
+    }
+
+    public PlayerData get(Player player) {
+        return get(player.getUniqueId());
+    }
+
+    /**
+     * Returns the cached data of the player, loading it on the async scheduler first if needed.
+     * Concurrent loads of the same player share one future. A failed load is logged, and retried by
+     * the next call or, for online players, by the next periodic flush.
+     */
+    public RendangFuture<PlayerData> load(UUID uniqueId) {
+        PlayerData cached = cache.get(uniqueId);
+        if (cached != null) {
+            RendangFuture<PlayerData> future = new RendangFuture<>(scheduler);
+            future.complete(cached);
+            return future;
+        }
+        boolean[] started = new boolean[1];
+        RendangFuture<PlayerData> future = loading.computeIfAbsent(uniqueId, id -> {
+            started[0] = true;
+            return scheduler.supplyAsync(() -> {
+                PlayerData pending = dirty.get(id);
+                if (pending == null) pending = writing.get(id);
+                PlayerData data = pending != null ? pending : read(id);
+                PlayerData previous = cache.putIfAbsent(id, data);
+                return previous != null ? previous : data;
+            });
+        });
+        if (started[0]) {
+            // registered outside computeIfAbsent, since a rejected task completes the future inline
+            future.whenComplete((data, throwable) -> {
+                loading.remove(uniqueId, future);
+                if (throwable != null) {
+                    scheduler.getPlugin().getLogger().log(Level.SEVERE, "Could not load data of " + uniqueId + ", retrying on the next access", throwable);
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * @return the number of players whose data is cached
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Writes the dirty records of every player now, on the calling thread.
+     *
+     * @return the number of players whose changes were written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            if (dirty.isEmpty()) return 0;
+            Map<UUID, PlayerData> batch = new LinkedHashMap<>();
+            Map<UUID, Map<String, String>> changes = new LinkedHashMap<>();
+            for (UUID uniqueId : new ArrayList<>(dirty.keySet())) {
+                PlayerData data = dirty.get(uniqueId);
+                if (data == null) continue;
+                // Published to writing before leaving dirty, so a concurrent load always finds it in one of them
+                writing.put(uniqueId, data);
+                dirty.remove(uniqueId);
+                Map<String, String> drained = data.drainChanges();
+                if (drained.isEmpty()) {
+                    writing.remove(uniqueId);
+                    continue;
+                }
+                batch.put(uniqueId, data);
+                changes.put(uniqueId, drained);
+            }
+            if (changes.isEmpty()) return 0;
+            try {
+                storage.saveAll(changes);
+            } catch (Exception e) {
+                scheduler.getPlugin().getLogger().log(Level.SEVERE, "Could not save data of " + changes.size() + " players, retrying on the next flush", e);
+                batch.forEach((uniqueId, data) -> {
+                    data.restoreChanges(changes.get(uniqueId));
+                    dirty.putIfAbsent(uniqueId, data);
+                });
+                return 0;
+            } finally {
+                writing.clear();
+            }
+            return changes.size();
+        }
+    }
+
+    /**
+     * Stops the periodic flush, writes every dirty record on the calling thread and closes the storage.
+     * Called by {@code RendangPlugin} when the plugin disables, before the scheduler shuts down.
+     */
+    public void close() {
+        if (closed) return;
+        closed = true;
+        flushTask.cancel();
+        flush();
+        if (!dirty.isEmpty()) {
+            scheduler.getPlugin().getLogger().warning("Data of " + dirty.size() + " players could not be saved");
+        }
+        try {
+            storage.close();
+        } catch (Exception e) {
+            scheduler.getPlugin().getLogger().log(Level.SEVERE, "Could not close player data storage", e);
+        }
+        cache.clear();
+    }
+
+    /**
+     * Loads the data of an online player and keeps it cached until they quit. Called on join, and by
+     * {@code RendangPlugin} for players already online when the store is created.
+     */
+    public RendangFuture<PlayerData> join(UUID uniqueId) {
+        online.add(uniqueId);
+        return load(uniqueId);
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        join(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        UUID uniqueId = event.getPlayer().getUniqueId();
+        online.remove(uniqueId);
+        cache.remove(uniqueId);
+    }
+
+    int checkRecord(PlayerDataRecord<?> record) {
+        Integer slot = slots.get(record);
+        if (slot == null) {
+            throw new IllegalArgumentException("Player data record '" + record.key + "' is not declared on this store");
+        }
+        return slot;
+    }
+
+    PlayerDataRecord<?> recordAt(int slot) {
+        return records[slot];
+    }
+
+    PlayerDataRecord<?> recordFor(String key) {
+        return recordsByKey.get(key);
+    }
+
+    void markDirty(PlayerData data) {
+        dirty.put(data.getUniqueId(), data);
+    }
+
+    private PlayerData read(UUID uniqueId) {
+        Map<String, String> stored;
+        try {
+            stored = storage.load(uniqueId);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not load data of " + uniqueId, e);
+        }
+        Object[] values = new Object[records.length];
+        for (int slot = 0; slot < records.length; slot++) {
+            values[slot] = records[slot].decode(stored.get(records[slot].key));
+        }
+        return new PlayerData(uniqueId, this, values);
+    }
+
+    private void flushAndEvict() {
+        flush();
+        long now = System.nanoTime();
+        cache.values().removeIf(data -> !online.contains(data.getUniqueId()) && now - data.getLastAccess() > idleTtlNanos);
+        for (UUID uniqueId : online) {
+            if (!cache.containsKey(uniqueId) && !loading.containsKey(uniqueId)) load(uniqueId);
+        }
+    }
+}
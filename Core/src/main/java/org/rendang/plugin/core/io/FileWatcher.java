@@ -0,0 +1,120 @@
+package org.rendang.plugin.core.io;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches the files directly inside one directory and reports each changed file once it is quiet.
+ * <p>
+ * Editors and {@link YamlFiles#writeAtomically} produce several create and modify events per save,
+ * so events are collected per file and the callback runs only after no further event arrived for
+ * that file during the debounce delay. The callback runs on the watcher's own daemon thread, never
+ * on the server thread, and an exception thrown by it is logged without stopping the watcher.
+ * </p>
+ */
+public final class FileWatcher implements AutoCloseable {
+
+    private final Path directory;
+    private final WatchService service;
+    private final long debounceNanos;
+    private final Consumer<Path> onChange;
+    private final Logger logger;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    private FileWatcher(Path directory, long debounce, TimeUnit unit, Consumer<Path> onChange, Logger logger) throws IOException {
+        this.directory = directory;
+        this.service = FileSystems.getDefault().newWatchService();
+        this.debounceNanos = unit.toNanos(debounce);
+        this.onChange = onChange;
+        this.logger = logger;
+        try {
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            service.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "FileWatcher " + directory.getFileName());
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching the directory.
+     *
+     * @param debounce Quiet period after the last event for a file before the callback runs
+     * @param onChange Called with the absolute path of each changed file, on the watcher thread
+     * @throws IOException if the directory cannot be watched
+     */
+    public static FileWatcher start(Path directory, long debounce, TimeUnit unit, Consumer<Path> onChange, Logger logger) throws IOException {
+        FileWatcher watcher = new FileWatcher(directory.toAbsolutePath().normalize(), debounce, unit, onChange, logger);
+        watcher.thread.start();
+        return watcher;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops the watcher. Changes still waiting for their debounce delay are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            service.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not close file watcher for " + directory, e);
+        }
+    }
+
+    private void run() {
+        Map<Path, Long> pending = new HashMap<>();
+        try {
+            while (!closed) {
+                WatchKey key = pending.isEmpty()
+                        ? service.take()
+                        : service.poll(debounceNanos, TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path name) {
+                            pending.put(directory.resolve(name), System.nanoTime());
+                        }
+                    }
+                    key.reset();
+                }
+                long now = System.nanoTime();
+                Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Path, Long> entry = iterator.next();
+                    if (now - entry.getValue() < debounceNanos) continue;
+                    iterator.remove();
+                    try {
+                        onChange.accept(entry.getKey());
+                    } catch (Throwable throwable) {
+                        logger.log(Level.SEVERE, "Could not apply changes of " + entry.getKey().getFileName(), throwable);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // closed
+        }
+    }
+}
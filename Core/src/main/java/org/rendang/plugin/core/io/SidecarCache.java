@@ -0,0 +1,202 @@
+package org.rendang.plugin.core.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary cache of what was resolved from a YAML file, stored in a {@code cache} directory next to it.
+ * <p>
+ * The header records the size, modification time and SHA-256 hash of the YAML file the payload was
+ * built from, plus a fingerprint of the schema that interpreted it (the record paths, types and
+ * defaults). A cache is used only if the schema fingerprint matches and the file has the same size
+ * and either the same modification time or, after a touch or copy, the same hash. Anything else,
+ * including a truncated or unreadable cache, makes {@link #read} return null so the caller parses the
+ * YAML and writes a fresh cache.
+ * </p>
+ * <p>
+ * Caches are read fully into a heap buffer and the file is closed before decoding. A memory mapping
+ * would stay open until the buffer is garbage collected, which on Windows blocks replacing or deleting
+ * the cache when it is rewritten.
+ * </p>
+ */
+public final class SidecarCache {
+
+    private static final int MAGIC = 0x52444E47;
+    private static final int VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte LIST = 7;
+
+    private SidecarCache() {
+    }
+
+    /**
+     * @return the cache file of the YAML file, for example {@code cache/config.yml.bin}
+     */
+    public static Path pathFor(Path yaml) {
+        Path absolute = yaml.toAbsolutePath();
+        return absolute.resolveSibling("cache").resolve(absolute.getFileName() + ".bin");
+    }
+
+    /**
+     * @return the SHA-256 digest of the schema description, to pass to {@link #read} and {@link #write}
+     */
+    public static byte[] fingerprint(String schema) {
+        return YamlFiles.hash(schema.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the cache of the YAML file if it is still valid for the file and the schema.
+     *
+     * @return the payload positioned after the header, or null if the cache is missing or stale
+     */
+    public static ByteBuffer read(Path yaml, byte[] fingerprint) {
+        Path cache = pathFor(yaml);
+        try {
+            if (!Files.isRegularFile(cache) || !Files.isRegularFile(yaml)) return null;
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cache));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            long size = buffer.getLong();
+            long modified = buffer.getLong();
+            byte[] hash = new byte[32];
+            buffer.get(hash);
+            byte[] schema = new byte[32];
+            buffer.get(schema);
+            if (!MessageDigest.isEqual(schema, fingerprint) || Files.size(yaml) != size) return null;
+            if (Files.getLastModifiedTime(yaml).toMillis() != modified
+                    && !MessageDigest.isEqual(hash, YamlFiles.hash(Files.readAllBytes(yaml)))) {
+                return null;
+            }
+            return buffer.slice();
+        } catch (IOException | BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the payload as the cache of the YAML file in its current state.
+     */
+    public static void write(Path yaml, byte[] fingerprint, byte[] payload) throws IOException {
+        byte[] content = Files.readAllBytes(yaml);
+        long modified = Files.getLastModifiedTime(yaml).toMillis();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96 + payload.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(content.length);
+        out.writeLong(modified);
+        out.write(YamlFiles.hash(content));
+        out.write(fingerprint);
+        out.write(payload);
+        YamlFiles.writeIfChanged(pathFor(yaml), bytes.toByteArray());
+    }
+
+    /**
+     * Deletes the cache of the YAML file, if any.
+     */
+    public static void invalidate(Path yaml) throws IOException {
+        Files.deleteIfExists(pathFor(yaml));
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a scalar configuration value, or a list of them.
+     *
+     * @return false if the value has no binary form, in which case the payload must not be cached
+     */
+    public static boolean writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NULL);
+            case String s -> {
+                out.writeByte(STRING);
+                writeString(out, s);
+            }
+            case Boolean b -> {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(b);
+            }
+            case Integer i -> {
+                out.writeByte(INTEGER);
+                out.writeInt(i);
+            }
+            case Long l -> {
+                out.writeByte(LONG);
+                out.writeLong(l);
+            }
+            case Double d -> {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            }
+            case Float f -> {
+                out.writeByte(FLOAT);
+                out.writeFloat(f);
+            }
+            case List<?> list -> {
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object element : list) {
+                    if (!writeValue(out, element)) return false;
+                }
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the value written by {@link #writeValue}
+     * @throws IllegalArgumentException if the buffer does not hold a value
+     */
+    public static Object readValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> readString(buffer);
+            case BOOLEAN -> buffer.get() != 0;
+            case INTEGER -> buffer.getInt();
+            case LONG -> buffer.getLong();
+            case DOUBLE -> buffer.getDouble();
+            case FLOAT -> buffer.getFloat();
+            case LIST -> {
+                int size = buffer.getInt();
+                if (size < 0 || size > buffer.remaining()) throw new BufferUnderflowException();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer));
+                }
+                yield list;
+            }
+            default -> throw new IllegalArgumentException("Unknown value tag " + tag);
+        };
+    }
+}
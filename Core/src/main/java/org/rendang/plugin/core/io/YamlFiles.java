@@ -0,0 +1,81 @@
+package org.rendang.plugin.core.io;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Writes YAML configurations to disk only when their content changed.
+ * <p>
+ * The serialized configuration is hashed and compared with the hash of the bytes already on disk,
+ * so loading a file that already contains every default does not rewrite it. When a write is needed
+ * it goes to a temporary file in the same directory which is then moved over the target, so a crash
+ * mid-write leaves either the old or the new file, never a truncated one.
+ * </p>
+ */
+public final class YamlFiles {
+
+    private YamlFiles() {
+    }
+
+    /**
+     * Saves the configuration to the file if the serialized content differs from what is on disk.
+     *
+     * @return true if the file was written
+     */
+    public static boolean saveIfChanged(FileConfiguration config, File file) throws IOException {
+        return writeIfChanged(file.toPath(), config.saveToString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the bytes to the path if they differ from its current content.
+     *
+     * @return true if the file was written
+     */
+    public static boolean writeIfChanged(Path path, byte[] content) throws IOException {
+        if (Files.isRegularFile(path) && Files.size(path) == content.length
+                && MessageDigest.isEqual(hash(Files.readAllBytes(path)), hash(content))) {
+            return false;
+        }
+        writeAtomically(path, content);
+        return true;
+    }
+
+    /**
+     * Writes the bytes to a temporary sibling file and moves it over the target.
+     */
+    public static void writeAtomically(Path path, byte[] content) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the SHA-256 digest of the content
+     */
+    public static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.rendang.plugin.core.messages;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.ComponentLike;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message template parsed into an Adventure component tree once, with its parameters as slots.
+ * <p>
+ * The template is deserialized with MiniMessage (or the legacy {@code §} serializer if it contains
+ * section codes) when the messages are loaded. Subtrees without parameters are reused as-is, so
+ * rendering only rebuilds the path down to each slot and never parses the template again.
+ * Parameters are inserted as plain text, or as-is if they are components, and are never parsed as MiniMessage.
+ * </p>
+ * <p>
+ * If a placeholder sits inside a tag argument, such as a click event, the tree has no text slot for it.
+ * Those templates fall back to rendering the string with escaped parameters and parsing it on each call.
+ * </p>
+ */
+public final class ComponentTemplate {
+
+    private static final char MARKER = '\uE000';
+    private static final char SLOT_BASE = '\uE100';
+
+    private final MessageTemplate template;
+    private final String[] params;
+    private final Node root;
+
+    private ComponentTemplate(MessageTemplate template, String[] params, Node root) {
+        this.template = template;
+        this.params = params;
+        this.root = root;
+    }
+
+    /**
+     * @param template The compiled string template
+     * @param params   The param names, used to keep the placeholder text of missing params
+     */
+    public static ComponentTemplate compile(MessageTemplate template, String[] params) {
+        Component parsed = deserialize(template.markSlots(MARKER, SLOT_BASE));
+        int[] found = new int[1];
+        Node root = node(parsed, found);
+        return new ComponentTemplate(template, params, found[0] == template.slotCount() ? root : null);
+    }
+
+    private static Component deserialize(String source) {
+        if (source.indexOf('§') >= 0) {
+            return LegacyComponentSerializer.legacySection().deserialize(source);
+        }
+        return MiniMessage.miniMessage().deserialize(source);
+    }
+
+    private static Node node(Component component, int[] found) {
+        List<Component> children = component.children();
+        Node[] nodes = new Node[children.size()];
+        boolean dynamic = false;
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = node(children.get(i), found);
+            dynamic |= !(nodes[i] instanceof Constant);
+        }
+        if (component instanceof TextComponent text && text.content().indexOf(MARKER) >= 0) {
+            String content = text.content();
+            List<String> literals = new ArrayList<>();
+            List<Integer> slots = new ArrayList<>();
+            int start = 0;
+            int marker;
+            while ((marker = content.indexOf(MARKER, start)) >= 0 && marker + 1 < content.length()) {
+                literals.add(content.substring(start, marker));
+                slots.add(content.charAt(marker + 1) - SLOT_BASE);
+                start = marker + 2;
+            }
+            literals.add(content.substring(start));
+            found[0] += slots.size();
+            int[] slotArray = slots.stream().mapToInt(Integer::intValue).toArray();
+            return new Dynamic(text.content(""), literals.toArray(new String[0]), slotArray, nodes);
+        }
+        if (!dynamic) return new Constant(component);
+        return new Dynamic(component, null, null, nodes);
+    }
+
+    /**
+     * Renders the component, substituting each slot with the matching param.
+     * Slots without a matching param keep their placeholder text.
+     */
+    public Component render(Object... values) {
+        if (root != null) {
+            return root.render(this, values);
+        }
+        Object[] escaped = new Object[values == null ? 0 : values.length];
+        for (int i = 0; i < escaped.length; i++) {
+            escaped[i] = MiniMessage.miniMessage().escapeTags(String.valueOf(values[i]));
+        }
+        return deserialize(template.render(escaped));
+    }
+
+    /**
+     * @return true if the template has no parameter slots and always renders to the same component
+     */
+    public boolean isConstant() {
+        return root instanceof Constant;
+    }
+
+    private Component slot(Object[] values, int slot) {
+        if (values != null && slot < values.length) {
+            Object value = values[slot];
+            return value instanceof ComponentLike like ? like.asComponent() : Component.text(String.valueOf(value));
+        }
+        return Component.text(params != null && slot < params.length ? "%" + params[slot] + "%" : "");
+    }
+
+    private interface Node {
+        Component render(ComponentTemplate owner, Object[] values);
+    }
+
+    private record Constant(Component component) implements Node {
+        @Override
+        public Component render(ComponentTemplate owner, Object[] values) {
+            return component;
+        }
+    }
+
+    private record Dynamic(Component base, String[] literals, int[] slots, Node[] children) implements Node {
+        @Override
+        public Component render(ComponentTemplate owner, Object[] values) {
+            List<Component> rendered = new ArrayList<>(children.length + (slots == null ? 0 : slots.length * 2 + 1));
+            if (slots != null) {
+                addText(rendered, literals[0]);
+                for (int i = 0; i < slots.length; i++) {
+                    rendered.add(owner.slot(values, slots[i]));
+                    addText(rendered, literals[i + 1]);
+                }
+            }
+            for (Node child : children) {
+                rendered.add(child.render(owner, values));
+            }
+            return base.children(rendered);
+        }
+
+        private static void addText(List<Component> rendered, String literal) {
+            if (!literal.isEmpty()) rendered.add(Component.text(literal));
+        }
+    }
+}
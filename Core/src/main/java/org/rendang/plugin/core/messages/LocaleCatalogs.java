@@ -0,0 +1,142 @@
+package org.rendang.plugin.core.messages;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compiled message catalogs per client locale, loaded on first use and kept in a bounded LRU cache.
+ * <p>
+ * A locale that is not cached yet is loaded on the executor while callers keep getting the default
+ * catalog, so a lookup never touches the disk. Locales without a file, and messages missing from a
+ * locale file, resolve to the default templates. The defaults are read through a supplier, so after
+ * {@link #invalidate()} locales are rebuilt against the current default catalog. A load that was
+ * still running when the catalogs were invalidated is discarded, and a locale whose file cannot be
+ * read is logged once and served the default catalog until the next invalidation.
+ * </p>
+ */
+final class LocaleCatalogs {
+
+    private static final Logger LOGGER = Logger.getLogger(LocaleCatalogs.class.getName());
+
+    private final File directory;
+    private final String baseName;
+    private final RendangMessageRecord[] types;
+    private final Supplier<MessageCatalog> fallback;
+    private final Executor loader;
+    private final Map<String, MessageCatalog> cache;
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    /**
+     * Incremented by {@link #invalidate()}, guarded by the cache lock.
+     */
+    private long generation;
+
+    LocaleCatalogs(File directory, String baseName, RendangMessageRecord[] types, Supplier<MessageCatalog> fallback, Executor loader, int maxLocales) {
+        if (maxLocales < 1) throw new IllegalArgumentException("maxLocales must be at least 1");
+        this.directory = directory;
+        this.baseName = baseName;
+        this.types = types;
+        this.fallback = fallback;
+        this.loader = loader;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MessageCatalog> eldest) {
+                return size() > maxLocales;
+            }
+        };
+    }
+
+    /**
+     * @return the catalog of the locale, or the default catalog while it is still loading
+     */
+    MessageCatalog get(Locale locale) {
+        String key = key(locale);
+        MessageCatalog catalog;
+        long current;
+        synchronized (cache) {
+            catalog = cache.get(key);
+            current = generation;
+        }
+        if (catalog != null) return catalog;
+        if (loading.add(key)) {
+            try {
+                loader.execute(() -> load(key, current));
+            } catch (RejectedExecutionException e) {
+                loading.remove(key);
+            }
+        }
+        return fallback.get();
+    }
+
+    /**
+     * @return whether the file name is a translation file of this catalog, such as {@code messages_de.yml}
+     */
+    boolean isTranslationFile(String fileName) {
+        return fileName.startsWith(baseName + "_") && fileName.endsWith(".yml");
+    }
+
+    /**
+     * Drops every compiled locale, so the next lookup of each reloads its file against the current defaults.
+     */
+    void invalidate() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+        }
+    }
+
+    private void load(String key, long loadGeneration) {
+        try {
+            MessageCatalog catalog;
+            try {
+                catalog = compile(key);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not load the " + key + " translation of " + baseName + ", using the default messages", e);
+                catalog = fallback.get();
+            }
+            synchronized (cache) {
+                if (generation == loadGeneration) cache.put(key, catalog);
+            }
+        } finally {
+            loading.remove(key);
+        }
+    }
+
+    private MessageCatalog compile(String key) {
+        File file = new File(directory, baseName + "_" + key + ".yml");
+        int separator = key.indexOf('_');
+        if (!file.isFile() && separator > 0) {
+            file = new File(directory, baseName + "_" + key.substring(0, separator) + ".yml");
+        }
+        MessageCatalog fallback = this.fallback.get();
+        if (!file.isFile()) return fallback;
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+        MessageTemplate[] templates = new MessageTemplate[types.length];
+        ComponentTemplate[] components = new ComponentTemplate[types.length];
+        for (int i = 0; i < types.length; i++) {
+            String template = config.getString(types[i].getPath());
+            if (template == null) {
+                templates[i] = fallback.templates[i];
+                components[i] = fallback.components[i];
+            } else {
+                templates[i] = MessageTemplate.compile(template, types[i].getParams());
+                components[i] = ComponentTemplate.compile(templates[i], types[i].getParams());
+            }
+        }
+        return new MessageCatalog(templates, components);
+    }
+
+    private static String key(Locale locale) {
+        return locale.toString().toLowerCase(Locale.ROOT);
+    }
+}
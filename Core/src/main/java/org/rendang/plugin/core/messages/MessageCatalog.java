@@ -0,0 +1,15 @@
+package org.rendang.plugin.core.messages;
+
+/**
+ * The compiled string and component templates of one language, indexed by message ordinal.
+ */
+final class MessageCatalog {
+
+    final MessageTemplate[] templates;
+    final ComponentTemplate[] components;
+
+    MessageCatalog(MessageTemplate[] templates, ComponentTemplate[] components) {
+        this.templates = templates;
+        this.components = components;
+    }
+}
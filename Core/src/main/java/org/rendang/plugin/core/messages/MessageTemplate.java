@@ -0,0 +1,196 @@
+package org.rendang.plugin.core.messages;
+
+import org.rendang.plugin.core.io.SidecarCache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message template split into literal segments and parameter slots.
+ * <p>
+ * Templates are compiled once when the messages are loaded. Rendering walks the segments once and
+ * appends each parameter in place, so values containing {@code $} or {@code \} are copied verbatim
+ * and no regular expression is ever compiled.
+ * </p>
+ */
+public final class MessageTemplate {
+
+    private static final int MAX_POOLED_CAPACITY = 8192;
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    private final String[] literals;
+    private final int[] slots;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private MessageTemplate(String source, String[] literals, int[] slots, String[] placeholders) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles a template whose placeholders are the given params wrapped in {@code %}.
+     * Text between percent signs that is not a known param is kept as-is.
+     *
+     * @param template The raw message, may be null
+     * @param params   The param names in the order they are passed to {@link #render(Object...)}
+     */
+    public static MessageTemplate compile(String template, String[] params) {
+        if (template == null) {
+            return new MessageTemplate("", new String[]{""}, new int[0], new String[0]);
+        }
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c == '%') {
+                int end = template.indexOf('%', i + 1);
+                int slot = end < 0 ? -1 : indexOf(params, template, i + 1, end);
+                if (slot >= 0) {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    slots.add(slot);
+                    placeholders.add(template.substring(i, end + 1));
+                    i = end + 1;
+                    continue;
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(literal.toString());
+        int[] slotArray = new int[slots.size()];
+        for (int j = 0; j < slotArray.length; j++) {
+            slotArray[j] = slots.get(j);
+        }
+        return new MessageTemplate(template, literals.toArray(new String[0]), slotArray, placeholders.toArray(new String[0]));
+    }
+
+    private static int indexOf(String[] params, String template, int start, int end) {
+        if (params == null) {
+            return -1;
+        }
+        int length = end - start;
+        for (int i = 0; i < params.length; i++) {
+            String param = params[i];
+            if (param.length() == length && template.regionMatches(start, param, 0, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Renders the template, substituting each slot with {@code String.valueOf} of the matching param.
+     * Slots without a matching param keep their placeholder text.
+     */
+    public String render(Object... params) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        renderTo(builder, params);
+        String result = builder.toString();
+        if (builder.capacity() > MAX_POOLED_CAPACITY) {
+            BUILDER.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Appends the rendered template to the given builder.
+     */
+    public void renderTo(StringBuilder builder, Object... params) {
+        builder.ensureCapacity(builder.length() + literalLength + slots.length * 16);
+        builder.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            if (params != null && slot < params.length) {
+                builder.append(params[slot]);
+            } else {
+                builder.append(placeholders[i]);
+            }
+            builder.append(literals[i + 1]);
+        }
+    }
+
+    /**
+     * Writes the compiled segments, to be restored with {@link #read(ByteBuffer)} without parsing the source again.
+     */
+    void write(DataOutputStream out) throws IOException {
+        SidecarCache.writeString(out, source);
+        out.writeInt(literals.length);
+        for (String literal : literals) {
+            SidecarCache.writeString(out, literal);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            out.writeInt(slots[i]);
+            SidecarCache.writeString(out, placeholders[i]);
+        }
+    }
+
+    static MessageTemplate read(ByteBuffer buffer) {
+        String source = SidecarCache.readString(buffer);
+        int count = buffer.getInt();
+        if (count < 1 || count > buffer.remaining()) throw new IllegalArgumentException("Invalid segment count " + count);
+        String[] literals = new String[count];
+        for (int i = 0; i < count; i++) {
+            literals[i] = SidecarCache.readString(buffer);
+        }
+        int[] slots = new int[count - 1];
+        String[] placeholders = new String[count - 1];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = buffer.getInt();
+            placeholders[i] = SidecarCache.readString(buffer);
+        }
+        return new MessageTemplate(source, literals, slots, placeholders);
+    }
+
+    /**
+     * Renders the template with each slot replaced by the marker followed by {@code slotBase + slot}.
+     */
+    String markSlots(char marker, char slotBase) {
+        StringBuilder builder = new StringBuilder(literalLength + slots.length * 2);
+        builder.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(marker).append((char) (slotBase + slots[i])).append(literals[i + 1]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the number of parameter slots
+     */
+    int slotCount() {
+        return slots.length;
+    }
+
+    /**
+     * @return true if the template has no parameter slots and always renders to the same string
+     */
+    public boolean isConstant() {
+        return slots.length == 0;
+    }
+
+    /**
+     * @return the raw template this was compiled from
+     */
+    public String getSource() {
+        return source;
+    }
+}
@@ -1,64 +1,296 @@
 package org.rendang.plugin.core.messages;
 
+import net.kyori.adventure.text.Component;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.rendang.plugin.core.io.SidecarCache;
+import org.rendang.plugin.core.io.YamlFiles;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
 
 public class RendangMessage <T extends Enum<T> & RendangMessageRecord> {
-    private final FileConfiguration config;
-    private final Map<String, String[]> paramMap = new HashMap<>();
+    private FileConfiguration config;
+    private volatile MessageCatalog catalog;
+    private final T[] types;
+    private final String placeholder;
+    private LocaleCatalogs locales;
+    private File file;
 
     public RendangMessage(FileConfiguration config, Class<T> tClass, String placeholder) {
         this.config = config;
-        config.options().copyDefaults(true);
-        for (T type : tClass.getEnumConstants()) {
-            String messageTemplate = type.getMessageTemplate();
-            if(type.getParams() != null){
-                for(var param: type.getParams()){
-                    messageTemplate = messageTemplate.replaceFirst(placeholder, createPlaceholder(param));
-                }
-            }
-            config.addDefault(type.getPath(), messageTemplate);
-            paramMap.put(type.getPath(), type.getParams() == null ? new String[0] : type.getParams());
+        this.placeholder = placeholder;
+        T[] types = tClass.getEnumConstants();
+        this.types = types;
+        addDefaults(config);
+        MessageTemplate[] templates = new MessageTemplate[types.length];
+        ComponentTemplate[] components = new ComponentTemplate[types.length];
+        for (T type : types) {
+            templates[type.ordinal()] = MessageTemplate.compile(config.getString(type.getPath()), type.getParams());
+            components[type.ordinal()] = ComponentTemplate.compile(templates[type.ordinal()], type.getParams());
         }
+        this.catalog = new MessageCatalog(templates, components);
     }
 
     public RendangMessage(FileConfiguration config, Class<T> tClass) {
         this(config, tClass, "<%>");
     }
 
+    /**
+     * Restores the messages from templates read out of the binary cache. The file is parsed only once
+     * the configuration itself is needed.
+     */
+    private RendangMessage(File file, T[] types, MessageTemplate[] templates) {
+        this.file = file;
+        this.placeholder = "<%>";
+        this.types = types;
+        ComponentTemplate[] components = new ComponentTemplate[types.length];
+        for (T type : types) {
+            components[type.ordinal()] = ComponentTemplate.compile(templates[type.ordinal()], type.getParams());
+        }
+        this.catalog = new MessageCatalog(templates, components);
+    }
+
+    /**
+     * Loads the messages from the file, adds missing defaults to it and stores the compiled templates
+     * in a binary {@link SidecarCache}. If neither the file nor the message enum changed since, the next
+     * load restores the templates from the cache without parsing the YAML.
+     */
     public static <T extends Enum<T> & RendangMessageRecord> RendangMessage<T> load(File file, Class<T> tClass) {
+        T[] types = tClass.getEnumConstants();
+        byte[] fingerprint = fingerprint(tClass, types);
+        MessageTemplate[] cached = readCache(file.toPath(), types, fingerprint);
+        if (cached != null) {
+            return new RendangMessage<>(file, types, cached);
+        }
         var config = YamlConfiguration.loadConfiguration(file);
         var messages = new RendangMessage<>(config, tClass);
+        messages.file = file;
         try {
             messages.save(file);
+            messages.writeCache(file.toPath(), fingerprint);
         } catch (IOException e) {
             e.printStackTrace();
         }
         return messages;
     }
 
+    /**
+     * Loads the messages like {@link #load(File, Class)} and serves translations from
+     * {@code <name>_<locale>.yml} files next to it, for example {@code messages_de_de.yml} or {@code messages_de.yml}.
+     * Translation files are read on the loader the first time their locale is requested.
+     *
+     * @param loader     Executor reading translation files, typically {@code RendangScheduler#getAsyncExecutor()}
+     * @param maxLocales Maximum number of compiled locales kept in memory
+     */
+    public static <T extends Enum<T> & RendangMessageRecord> RendangMessage<T> load(File file, Class<T> tClass, Executor loader, int maxLocales) {
+        var messages = load(file, tClass);
+        String name = file.getName();
+        String baseName = name.endsWith(".yml") ? name.substring(0, name.length() - 4) : name;
+        messages.locales = new LocaleCatalogs(file.getAbsoluteFile().getParentFile(), baseName, messages.types, () -> messages.catalog, loader, maxLocales);
+        return messages;
+    }
+
     public String parse(T rendangMessage, Object ...params){
-        var message = config.getString(rendangMessage.getPath());
-        if(message == null){
-            return "";
+        return catalog.templates[rendangMessage.ordinal()].render(params);
+    }
+
+    /**
+     * Renders the message in the locale, falling back to the default messages while the locale is
+     * loading or if it has no translation. Messages without params are compiled to a constant per locale.
+     */
+    public String parse(Locale locale, T rendangMessage, Object ...params){
+        return catalog(locale).templates[rendangMessage.ordinal()].render(params);
+    }
+
+    /**
+     * Renders the message in the client locale of the sender if it is a player, otherwise in the default messages.
+     */
+    public String parse(CommandSender sender, T rendangMessage, Object ...params){
+        return parse(sender instanceof Player player ? player.locale() : null, rendangMessage, params);
+    }
+
+    /**
+     * Renders the message as a component from its pre-parsed MiniMessage tree. Params are inserted as
+     * plain text, or as-is if they are components.
+     */
+    public Component parseComponent(T rendangMessage, Object ...params){
+        return catalog.components[rendangMessage.ordinal()].render(params);
+    }
+
+    public Component parseComponent(Locale locale, T rendangMessage, Object ...params){
+        return catalog(locale).components[rendangMessage.ordinal()].render(params);
+    }
+
+    public Component parseComponent(CommandSender sender, T rendangMessage, Object ...params){
+        return parseComponent(sender instanceof Player player ? player.locale() : null, rendangMessage, params);
+    }
+
+    public MessageTemplate getTemplate(T rendangMessage){
+        return catalog.templates[rendangMessage.ordinal()];
+    }
+
+    public MessageTemplate getTemplate(Locale locale, T rendangMessage){
+        return catalog(locale).templates[rendangMessage.ordinal()];
+    }
+
+    public ComponentTemplate getComponentTemplate(T rendangMessage){
+        return catalog.components[rendangMessage.ordinal()];
+    }
+
+    /**
+     * Takes the messages from a freshly loaded copy of the file and recompiles only the templates whose
+     * text changed, then publishes them as a new catalog. Cached translations are dropped when anything
+     * changed, since their missing messages fall back to the old defaults. The messages configuration
+     * is left untouched, so this may run off the main thread; pass the result to {@link #store} on the
+     * main thread to keep it in sync.
+     *
+     * @return the messages whose template changed
+     */
+    public synchronized List<T> apply(ConfigurationSection loaded){
+        MessageCatalog current = catalog;
+        MessageTemplate[] templates = null;
+        ComponentTemplate[] components = null;
+        List<T> changed = new ArrayList<>();
+        for (T type : types) {
+            String source = loaded.getString(type.getPath());
+            int i = type.ordinal();
+            if (source == null || source.equals(current.templates[i].getSource())) continue;
+            if (templates == null) {
+                templates = current.templates.clone();
+                components = current.components.clone();
+            }
+            templates[i] = MessageTemplate.compile(source, type.getParams());
+            components[i] = ComponentTemplate.compile(templates[i], type.getParams());
+            changed.add(type);
         }
-        var paramTemplate = paramMap.get(rendangMessage.getPath());
-        for (int i = 0; i < paramTemplate.length; i++) {
-            final var param = paramTemplate[i];
-            final var data = params[i];
-            final var placeholder = createPlaceholder(param);
-            message = message.replaceAll(placeholder, String.valueOf(data));
+        if (templates != null) {
+            catalog = new MessageCatalog(templates, components);
+            if (locales != null) locales.invalidate();
         }
-        return message;
+        return changed;
     }
 
+    /**
+     * Copies the current text of the changed messages into the messages configuration. Must run on the
+     * main thread.
+     *
+     * @param changed The messages returned by {@link #apply}
+     */
+    public synchronized void store(List<T> changed){
+        MessageCatalog current = catalog;
+        for (T type : changed) {
+            config().set(type.getPath(), current.templates[type.ordinal()].getSource());
+        }
+    }
+
+    /**
+     * Drops the compiled translations if the file name is one of the translation files, so they are
+     * read again on their next use.
+     *
+     * @return whether the file is a translation file of these messages
+     */
+    public boolean reloadTranslation(String fileName){
+        LocaleCatalogs current = locales;
+        if (current == null || !current.isTranslationFile(fileName)) return false;
+        current.invalidate();
+        return true;
+    }
+
+    /**
+     * @return the file the messages were loaded from, or null if they were created from a configuration
+     */
+    public File getFile(){
+        return file;
+    }
+
+    private MessageCatalog catalog(Locale locale){
+        LocaleCatalogs current = locales;
+        return current == null || locale == null ? catalog : current.get(locale);
+    }
+
+    /**
+     * Saves the messages to the file, skipping the write when the file already has the same content.
+     */
     public void save(File file) throws IOException {
-        config.save(file);
+        YamlFiles.saveIfChanged(config(), file);
+    }
+
+    /**
+     * @return the configuration the messages were read from, parsed on first use after a cached load
+     */
+    private synchronized FileConfiguration config(){
+        if (config == null) {
+            FileConfiguration loaded = YamlConfiguration.loadConfiguration(file);
+            addDefaults(loaded);
+            config = loaded;
+        }
+        return config;
+    }
+
+    private void addDefaults(FileConfiguration config){
+        config.options().copyDefaults(true);
+        for (T type : types) {
+            String messageTemplate = type.getMessageTemplate();
+            if(type.getParams() != null){
+                for(var param: type.getParams()){
+                    messageTemplate = messageTemplate.replaceFirst(placeholder, createPlaceholder(param));
+                }
+            }
+            config.addDefault(type.getPath(), messageTemplate);
+        }
+    }
+
+    private static byte[] fingerprint(Class<?> tClass, RendangMessageRecord[] types){
+        StringBuilder schema = new StringBuilder(tClass.getName()).append('\n');
+        for (RendangMessageRecord type : types) {
+            schema.append(type.getPath()).append('\0').append(type.getMessageTemplate()).append('\0');
+            if (type.getParams() != null) schema.append(String.join(",", type.getParams()));
+            schema.append('\n');
+        }
+        return SidecarCache.fingerprint(schema.toString());
+    }
+
+    /**
+     * @return the templates stored in the cache by ordinal, or null if there is no valid cache
+     */
+    private static MessageTemplate[] readCache(Path file, RendangMessageRecord[] types, byte[] fingerprint){
+        ByteBuffer buffer = SidecarCache.read(file, fingerprint);
+        if (buffer == null) return null;
+        try {
+            if (buffer.getInt() != types.length) return null;
+            MessageTemplate[] templates = new MessageTemplate[types.length];
+            for (int i = 0; i < types.length; i++) {
+                if (!SidecarCache.readString(buffer).equals(types[i].getPath())) return null;
+                templates[i] = MessageTemplate.read(buffer);
+            }
+            return templates;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void writeCache(Path file, byte[] fingerprint) throws IOException {
+        MessageCatalog current = catalog;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(types.length);
+        for (T type : types) {
+            SidecarCache.writeString(out, type.getPath());
+            current.templates[type.ordinal()].write(out);
+        }
+        SidecarCache.write(file, fingerprint, bytes.toByteArray());
     }
 
     private String createPlaceholder(String str){
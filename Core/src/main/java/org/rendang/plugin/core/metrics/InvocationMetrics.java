@@ -0,0 +1,62 @@
+package org.rendang.plugin.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation count, error count and latency of a single named operation, such as a command handler.
+ */
+public final class InvocationMetrics {
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public InvocationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one invocation.
+     *
+     * @param nanos  How long the invocation took
+     * @param failed Whether it ended with an error
+     */
+    public void record(long nanos, boolean failed) {
+        invocations.increment();
+        if (failed) errors.increment();
+        latency.record(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public void reset() {
+        invocations.reset();
+        errors.reset();
+        latency.reset();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(name, invocations.sum(), errors.sum(), latency.snapshot());
+    }
+
+    /**
+     * Point-in-time copy for export to external monitoring.
+     */
+    public record Snapshot(String name, long invocations, long errors, LatencyHistogram.Snapshot latency) {
+    }
+}
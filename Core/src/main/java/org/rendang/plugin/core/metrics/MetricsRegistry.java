@@ -0,0 +1,45 @@
+package org.rendang.plugin.core.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named {@link InvocationMetrics}, created once and then recorded into directly by their owners.
+ */
+public final class MetricsRegistry {
+
+    private final Map<String, InvocationMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * @return the metrics registered under the name, created on first use
+     */
+    public InvocationMetrics get(String name) {
+        return metrics.computeIfAbsent(name, InvocationMetrics::new);
+    }
+
+    /**
+     * Registers existing metrics under their name, replacing any previous entry.
+     */
+    public void register(InvocationMetrics invocationMetrics) {
+        metrics.put(invocationMetrics.getName(), invocationMetrics);
+    }
+
+    /**
+     * @return a snapshot of every entry, the most expensive in total time first
+     */
+    public List<InvocationMetrics.Snapshot> snapshot() {
+        List<InvocationMetrics.Snapshot> snapshots = new ArrayList<>(metrics.size());
+        for (InvocationMetrics invocationMetrics : metrics.values()) {
+            snapshots.add(invocationMetrics.snapshot());
+        }
+        snapshots.sort(Comparator.comparingLong((InvocationMetrics.Snapshot snapshot) -> snapshot.latency().getTotalNanos()).reversed());
+        return snapshots;
+    }
+
+    public void reset() {
+        metrics.values().forEach(InvocationMetrics::reset);
+    }
+}
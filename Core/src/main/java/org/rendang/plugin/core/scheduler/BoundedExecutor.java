@@ -0,0 +1,82 @@
+package org.rendang.plugin.core.scheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Virtual-thread executor that runs at most a fixed number of tasks at once and rejects
+ * submissions once too many are waiting, so callers get backpressure instead of an unbounded backlog.
+ */
+final class BoundedExecutor implements Executor {
+
+    private final ExecutorService threads;
+    private final Semaphore permits;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final int maxPending;
+
+    BoundedExecutor(String name, int maxConcurrency, int maxQueued) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        if (maxQueued < 0) throw new IllegalArgumentException("maxQueued must not be negative");
+        this.threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory());
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxPending = maxConcurrency + maxQueued;
+    }
+
+    /**
+     * @throws RejectedExecutionException if the queue is full or the executor was shut down
+     */
+    Future<?> submit(Runnable task) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new RejectedExecutionException("Async executor is saturated (" + maxPending + " tasks pending)");
+        }
+        // done() runs exactly once whether the task ran, failed or was cancelled before it started
+        FutureTask<Void> future = new FutureTask<>(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                pending.decrementAndGet();
+            }
+        };
+        try {
+            threads.execute(future);
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+        return future;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(task);
+    }
+
+    /**
+     * @return the number of tasks running or waiting for a permit
+     */
+    int getPending() {
+        return pending.get();
+    }
+
+    void shutdown() {
+        threads.shutdownNow();
+    }
+}
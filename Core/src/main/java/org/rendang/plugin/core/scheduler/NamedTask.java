@@ -0,0 +1,12 @@
+package org.rendang.plugin.core.scheduler;
+
+/**
+ * Task carrying the name it is reported under by the {@link TaskProfiler}.
+ */
+record NamedTask(String name, Runnable task) implements Runnable {
+
+    @Override
+    public void run() {
+        task.run();
+    }
+}
@@ -0,0 +1,105 @@
+package org.rendang.plugin.core.scheduler;
+
+import org.bukkit.entity.Entity;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link CompletableFuture} bound to a {@link RendangScheduler}, with stages that hop to the main
+ * thread (global region in Folia) or to an entity's thread.
+ * <p>
+ * Async stages without an explicit executor run on the scheduler's bounded virtual-thread executor
+ * instead of the common pool, and every dependent stage is a {@code RendangFuture} as well:
+ * </p>
+ * <pre>{@code
+ * scheduler.supplyAsync(() -> database.load(uuid))
+ *         .withTimeout(5, TimeUnit.SECONDS)
+ *         .thenAcceptSync(data -> apply(data));
+ * }</pre>
+ */
+public class RendangFuture<T> extends CompletableFuture<T> {
+
+    private final RendangScheduler scheduler;
+
+    public RendangFuture(RendangScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public <U> RendangFuture<U> newIncompleteFuture() {
+        return new RendangFuture<>(scheduler);
+    }
+
+    @Override
+    public Executor defaultExecutor() {
+        return scheduler.getAsyncExecutor();
+    }
+
+    /**
+     * Applies the function on the main thread (or global region in Folia).
+     */
+    public <U> RendangFuture<U> thenApplySync(Function<? super T, ? extends U> fn) {
+        return (RendangFuture<U>) thenApplyAsync(fn, scheduler.getSyncExecutor());
+    }
+
+    /**
+     * Consumes the result on the main thread (or global region in Folia).
+     */
+    public RendangFuture<Void> thenAcceptSync(Consumer<? super T> action) {
+        return (RendangFuture<Void>) thenAcceptAsync(action, scheduler.getSyncExecutor());
+    }
+
+    /**
+     * Runs the action on the main thread (or global region in Folia).
+     */
+    public RendangFuture<Void> thenRunSync(Runnable action) {
+        return (RendangFuture<Void>) thenRunAsync(action, scheduler.getSyncExecutor());
+    }
+
+    /**
+     * Applies the function on the thread owning the entity. If the entity is removed before the
+     * stage runs, the returned future completes with a {@link CancellationException}.
+     */
+    public <U> RendangFuture<U> thenApplyAtEntity(Entity entity, Function<? super T, ? extends U> fn) {
+        RendangFuture<U> result = newIncompleteFuture();
+        whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            scheduler.runAtEntity(entity, () -> {
+                try {
+                    result.complete(fn.apply(value));
+                } catch (Throwable throwable) {
+                    result.completeExceptionally(throwable);
+                }
+            }, () -> result.completeExceptionally(new CancellationException("Entity was removed")));
+        });
+        return result;
+    }
+
+    /**
+     * Consumes the result on the thread owning the entity. If the entity is removed before the
+     * stage runs, the returned future completes with a {@link CancellationException}.
+     */
+    public RendangFuture<Void> thenAcceptAtEntity(Entity entity, Consumer<? super T> action) {
+        return thenApplyAtEntity(entity, value -> {
+            action.accept(value);
+            return null;
+        });
+    }
+
+    /**
+     * Completes this future with a {@link java.util.concurrent.TimeoutException} if it is not done in time.
+     * Work started by {@link RendangScheduler#supplyAsync} is interrupted when that happens.
+     */
+    public RendangFuture<T> withTimeout(long timeout, TimeUnit unit) {
+        orTimeout(timeout, unit);
+        return this;
+    }
+}
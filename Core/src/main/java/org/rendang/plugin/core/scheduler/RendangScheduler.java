@@ -1,9 +1,25 @@
 package org.rendang.plugin.core.scheduler;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
 import org.bukkit.plugin.Plugin;
+import org.rendang.plugin.core.io.YamlFiles;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * Utility class for scheduling tasks that work with both Paper and Folia.
@@ -16,15 +32,48 @@ import java.util.concurrent.TimeUnit;
  * All timing parameters use server ticks (20 ticks = 1 second) for consistency with
  * the Bukkit API, regardless of whether the server is running Paper or Folia.
  * </p>
+ * <p>
+ * Every method returns a {@link RendangTask} handle. Handles stay registered until the task
+ * finishes, so {@link #cancelAll()} can stop everything still pending when the plugin disables.
+ * </p>
+ * <p>
+ * For work that produces a result, {@link #supplyAsync(Supplier)} runs on a bounded virtual-thread
+ * executor and returns a {@link RendangFuture}, whose {@code thenApplySync}/{@code thenAcceptSync}
+ * stages hop back to the main thread (or global region in Folia).
+ * </p>
+ * <p>
+ * {@link #enableProfiler(double)} turns on the {@link TaskProfiler}, which times every task submitted
+ * afterwards. Give tasks a readable name in its report with {@link #named(String, Runnable)}.
+ * </p>
  */
 public class RendangScheduler {
     
+    public static final int DEFAULT_MAX_ASYNC_CONCURRENCY = 64;
+    public static final int DEFAULT_MAX_ASYNC_QUEUE = 4096;
+    public static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
     private final Plugin plugin;
     private final boolean isFolia;
+    private final Set<TrackedTask> tasks = ConcurrentHashMap.newKeySet();
+    private final Set<RendangFuture<?>> futures = ConcurrentHashMap.newKeySet();
+    private final BoundedExecutor asyncExecutor;
+    private final Executor syncExecutor = this::runTask;
+    private final Executor profiledAsyncExecutor;
+    private volatile TaskProfiler profiler;
     
     public RendangScheduler(Plugin plugin) {
+        this(plugin, DEFAULT_MAX_ASYNC_CONCURRENCY, DEFAULT_MAX_ASYNC_QUEUE);
+    }
+
+    /**
+     * @param maxAsyncConcurrency Maximum number of tasks the virtual-thread executor runs at once
+     * @param maxAsyncQueue Maximum number of tasks waiting for a free slot before submissions are rejected
+     */
+    public RendangScheduler(Plugin plugin, int maxAsyncConcurrency, int maxAsyncQueue) {
         this.plugin = plugin;
         this.isFolia = checkFolia();
+        this.asyncExecutor = new BoundedExecutor(plugin.getName() + "-async-", maxAsyncConcurrency, maxAsyncQueue);
+        this.profiledAsyncExecutor = task -> asyncExecutor.execute(profile(task, TaskProfiler.Category.ASYNC));
     }
     
     /**
@@ -46,22 +95,26 @@ public class RendangScheduler {
     /**
      * Run a task on the main thread (or global region in Folia)
      */
-    public void runTask(Runnable task) {
+    public RendangTask runTask(Runnable task) {
+        Runnable profiled = profile(task, TaskProfiler.Category.SYNC);
+        TrackedTask tracked = new TrackedTask(tasks, false);
         if (isFolia) {
-            Bukkit.getGlobalRegionScheduler().run(plugin, scheduledTask -> task.run());
+            return tracked.bind(Bukkit.getGlobalRegionScheduler().run(plugin, tracked.wrapFolia(profiled)));
         } else {
-            Bukkit.getScheduler().runTask(plugin, task);
+            return tracked.bind(Bukkit.getScheduler().runTask(plugin, tracked.wrap(profiled)));
         }
     }
     
     /**
      * Run a task asynchronously
      */
-    public void runTaskAsynchronously(Runnable task) {
+    public RendangTask runTaskAsynchronously(Runnable task) {
+        Runnable profiled = profile(task, TaskProfiler.Category.ASYNC);
+        TrackedTask tracked = new TrackedTask(tasks, false);
         if (isFolia) {
-            Bukkit.getAsyncScheduler().runNow(plugin, scheduledTask -> task.run());
+            return tracked.bind(Bukkit.getAsyncScheduler().runNow(plugin, tracked.wrapFolia(profiled)));
         } else {
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+            return tracked.bind(Bukkit.getScheduler().runTaskAsynchronously(plugin, tracked.wrap(profiled)));
         }
     }
     
@@ -70,11 +123,13 @@ public class RendangScheduler {
      * @param task The task to run
      * @param delayTicks Delay in server ticks (20 ticks = 1 second)
      */
-    public void runTaskLater(Runnable task, long delayTicks) {
+    public RendangTask runTaskLater(Runnable task, long delayTicks) {
+        Runnable profiled = profile(task, TaskProfiler.Category.SYNC);
+        TrackedTask tracked = new TrackedTask(tasks, false);
         if (isFolia) {
-            Bukkit.getGlobalRegionScheduler().runDelayed(plugin, scheduledTask -> task.run(), delayTicks);
+            return tracked.bind(Bukkit.getGlobalRegionScheduler().runDelayed(plugin, tracked.wrapFolia(profiled), foliaDelay(delayTicks)));
         } else {
-            Bukkit.getScheduler().runTaskLater(plugin, task, delayTicks);
+            return tracked.bind(Bukkit.getScheduler().runTaskLater(plugin, tracked.wrap(profiled), delayTicks));
         }
     }
     
@@ -83,11 +138,13 @@ public class RendangScheduler {
      * @param task The task to run
      * @param delayTicks Delay in server ticks (20 ticks = 1 second)
      */
-    public void runTaskLaterAsynchronously(Runnable task, long delayTicks) {
+    public RendangTask runTaskLaterAsynchronously(Runnable task, long delayTicks) {
+        Runnable profiled = profile(task, TaskProfiler.Category.ASYNC);
+        TrackedTask tracked = new TrackedTask(tasks, false);
         if (isFolia) {
-            Bukkit.getAsyncScheduler().runDelayed(plugin, scheduledTask -> task.run(), delayTicks * 50, TimeUnit.MILLISECONDS);
+            return tracked.bind(Bukkit.getAsyncScheduler().runDelayed(plugin, tracked.wrapFolia(profiled), delayTicks * 50, TimeUnit.MILLISECONDS));
         } else {
-            Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, task, delayTicks);
+            return tracked.bind(Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, tracked.wrap(profiled), delayTicks));
         }
     }
     
@@ -97,11 +154,13 @@ public class RendangScheduler {
      * @param delayTicks Initial delay in server ticks
      * @param periodTicks Period between executions in server ticks (20 ticks = 1 second)
      */
-    public void runTaskTimer(Runnable task, long delayTicks, long periodTicks) {
+    public RendangTask runTaskTimer(Runnable task, long delayTicks, long periodTicks) {
+        Runnable profiled = profile(task, TaskProfiler.Category.SYNC);
+        TrackedTask tracked = new TrackedTask(tasks, true);
         if (isFolia) {
-            Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, scheduledTask -> task.run(), delayTicks, periodTicks);
+            return tracked.bind(Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, tracked.wrapFolia(profiled), foliaDelay(delayTicks), periodTicks));
         } else {
-            Bukkit.getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks);
+            return tracked.bind(Bukkit.getScheduler().runTaskTimer(plugin, tracked.wrap(profiled), delayTicks, periodTicks));
         }
     }
     
@@ -111,14 +170,373 @@ public class RendangScheduler {
      * @param delayTicks Initial delay in server ticks
      * @param periodTicks Period between executions in server ticks (20 ticks = 1 second)
      */
-    public void runTaskTimerAsynchronously(Runnable task, long delayTicks, long periodTicks) {
+    public RendangTask runTaskTimerAsynchronously(Runnable task, long delayTicks, long periodTicks) {
+        Runnable profiled = profile(task, TaskProfiler.Category.ASYNC);
+        TrackedTask tracked = new TrackedTask(tasks, true);
         if (isFolia) {
-            Bukkit.getAsyncScheduler().runAtFixedRate(plugin, scheduledTask -> task.run(), delayTicks * 50, periodTicks * 50, TimeUnit.MILLISECONDS);
+            return tracked.bind(Bukkit.getAsyncScheduler().runAtFixedRate(plugin, tracked.wrapFolia(profiled), delayTicks * 50, periodTicks * 50, TimeUnit.MILLISECONDS));
         } else {
-            Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, task, delayTicks, periodTicks);
+            return tracked.bind(Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, tracked.wrap(profiled), delayTicks, periodTicks));
         }
     }
     
+    /**
+     * Run a task on the thread owning the entity (the entity's region in Folia, the main thread in Paper)
+     * @param entity The entity the task operates on
+     * @param task The task to run
+     * @param retired Called instead of the task if the entity is removed before it runs, may be null
+     */
+    public RendangTask runAtEntity(Entity entity, Runnable task, Runnable retired) {
+        return runAtEntityLater(entity, task, retired, 1);
+    }
+
+    /**
+     * Run a delayed task on the thread owning the entity (the entity's region in Folia, the main thread in Paper)
+     * @param entity The entity the task operates on
+     * @param task The task to run
+     * @param retired Called instead of the task if the entity is removed before it runs, may be null
+     * @param delayTicks Delay in server ticks (20 ticks = 1 second)
+     */
+    public RendangTask runAtEntityLater(Entity entity, Runnable task, Runnable retired, long delayTicks) {
+        Runnable profiled = profile(task, regionCategory());
+        TrackedTask tracked = new TrackedTask(tasks, false);
+        Runnable retire = tracked.retire(retired);
+        if (isFolia) {
+            return tracked.bind(entity.getScheduler().runDelayed(plugin, tracked.wrapFolia(profiled), retire, foliaDelay(delayTicks)));
+        } else {
+            Runnable guarded = tracked.wrap(() -> {
+                if (entity.isValid()) profiled.run();
+                else retire.run();
+            });
+            return tracked.bind(Bukkit.getScheduler().runTaskLater(plugin, guarded, delayTicks));
+        }
+    }
+
+    /**
+     * Run a repeating task on the thread owning the entity (the entity's region in Folia, the main thread in Paper).
+     * The task stops and the retired callback runs once the entity is removed.
+     * @param entity The entity the task operates on
+     * @param task The task to run
+     * @param retired Called once if the entity is removed, may be null
+     * @param delayTicks Initial delay in server ticks
+     * @param periodTicks Period between executions in server ticks (20 ticks = 1 second)
+     */
+    public RendangTask runAtEntityTimer(Entity entity, Runnable task, Runnable retired, long delayTicks, long periodTicks) {
+        Runnable profiled = profile(task, regionCategory());
+        TrackedTask tracked = new TrackedTask(tasks, true);
+        Runnable retire = tracked.retire(retired);
+        if (isFolia) {
+            return tracked.bind(entity.getScheduler().runAtFixedRate(plugin, tracked.wrapFolia(profiled), retire, foliaDelay(delayTicks), periodTicks));
+        } else {
+            Runnable guarded = tracked.wrap(() -> {
+                if (entity.isValid()) {
+                    profiled.run();
+                } else {
+                    tracked.cancel();
+                    if (retired != null) retired.run();
+                }
+            });
+            return tracked.bind(Bukkit.getScheduler().runTaskTimer(plugin, guarded, delayTicks, periodTicks));
+        }
+    }
+
+    /**
+     * Run a task on the region owning the location (the main thread in Paper)
+     * @param location The location the task operates on
+     * @param task The task to run
+     */
+    public RendangTask runAtLocation(Location location, Runnable task) {
+        Runnable profiled = profile(task, regionCategory());
+        TrackedTask tracked = new TrackedTask(tasks, false);
+        if (isFolia) {
+            return tracked.bind(Bukkit.getRegionScheduler().run(plugin, location, tracked.wrapFolia(profiled)));
+        } else {
+            return tracked.bind(Bukkit.getScheduler().runTask(plugin, tracked.wrap(profiled)));
+        }
+    }
+
+    /**
+     * Run a delayed task on the region owning the location (the main thread in Paper)
+     * @param location The location the task operates on
+     * @param task The task to run
+     * @param delayTicks Delay in server ticks (20 ticks = 1 second)
+     */
+    public RendangTask runAtLocationLater(Location location, Runnable task, long delayTicks) {
+        Runnable profiled = profile(task, regionCategory());
+        TrackedTask tracked = new TrackedTask(tasks, false);
+        if (isFolia) {
+            return tracked.bind(Bukkit.getRegionScheduler().runDelayed(plugin, location, tracked.wrapFolia(profiled), foliaDelay(delayTicks)));
+        } else {
+            return tracked.bind(Bukkit.getScheduler().runTaskLater(plugin, tracked.wrap(profiled), delayTicks));
+        }
+    }
+
+    /**
+     * Run a repeating task on the region owning the location (the main thread in Paper)
+     * @param location The location the task operates on
+     * @param task The task to run
+     * @param delayTicks Initial delay in server ticks
+     * @param periodTicks Period between executions in server ticks (20 ticks = 1 second)
+     */
+    public RendangTask runAtLocationTimer(Location location, Runnable task, long delayTicks, long periodTicks) {
+        Runnable profiled = profile(task, regionCategory());
+        TrackedTask tracked = new TrackedTask(tasks, true);
+        if (isFolia) {
+            return tracked.bind(Bukkit.getRegionScheduler().runAtFixedRate(plugin, location, tracked.wrapFolia(profiled), foliaDelay(delayTicks), periodTicks));
+        } else {
+            return tracked.bind(Bukkit.getScheduler().runTaskTimer(plugin, tracked.wrap(profiled), delayTicks, periodTicks));
+        }
+    }
+
+    /**
+     * Create a batcher that drains its queued tasks once per tick on the main thread (or global region in Folia)
+     * @param budget Maximum time a single drain may spend before leaving the rest for the next tick
+     * @param unit Unit of the budget
+     */
+    public TaskBatcher createBatcher(long budget, TimeUnit unit) {
+        String name = "TaskBatcher " + TaskProfiler.callSite();
+        return new TaskBatcher(task -> runTask(named(name, task)), plugin.getLogger(), budget, unit);
+    }
+
+    /**
+     * Create a batcher that drains its queued tasks once per tick on the region owning the location
+     * (the main thread in Paper). Use one batcher per region for work bound to that region.
+     * @param location A location inside the region
+     * @param budget Maximum time a single drain may spend before leaving the rest for the next tick
+     * @param unit Unit of the budget
+     */
+    public TaskBatcher createBatcher(Location location, long budget, TimeUnit unit) {
+        String name = "TaskBatcher " + TaskProfiler.callSite();
+        return new TaskBatcher(task -> runAtLocation(location, named(name, task)), plugin.getLogger(), budget, unit);
+    }
+
+    /**
+     * Executor running tasks on a bounded pool of virtual threads. Submissions beyond the configured
+     * queue size are rejected with a {@link RejectedExecutionException}.
+     */
+    public Executor getAsyncExecutor() {
+        return profiledAsyncExecutor;
+    }
+
+    /**
+     * Executor running tasks on the main thread (or global region in Folia).
+     */
+    public Executor getSyncExecutor() {
+        return syncExecutor;
+    }
+
+    /**
+     * Executor running tasks on the thread owning the entity. Tasks submitted after the entity
+     * is removed are dropped.
+     */
+    public Executor getEntityExecutor(Entity entity) {
+        return task -> runAtEntity(entity, task, null);
+    }
+
+    /**
+     * Compute a value on the virtual-thread executor.
+     * If the returned future is cancelled or times out, the running supplier is interrupted.
+     * @param supplier The computation to run
+     */
+    public <T> RendangFuture<T> supplyAsync(Supplier<T> supplier) {
+        RendangFuture<T> future = new RendangFuture<>(this);
+        futures.add(future);
+        try {
+            Future<?> running = asyncExecutor.submit(profile(() -> {
+                try {
+                    future.complete(supplier.get());
+                } catch (Throwable throwable) {
+                    future.completeExceptionally(throwable);
+                }
+            }, TaskProfiler.Category.ASYNC));
+            future.whenComplete((value, error) -> {
+                futures.remove(future);
+                // The worker completes the future itself while its task is still running, so it is
+                // only interrupted when the future was completed from outside
+                if (future.isCancelled() || error instanceof CancellationException || error instanceof TimeoutException) {
+                    running.cancel(true);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            futures.remove(future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Compute a value on the virtual-thread executor, failing with a
+     * {@link java.util.concurrent.TimeoutException} and interrupting the supplier if it takes too long.
+     * @param supplier The computation to run
+     * @param timeout Maximum time to wait for the result
+     * @param unit Unit of the timeout
+     */
+    public <T> RendangFuture<T> supplyAsync(Supplier<T> supplier, long timeout, TimeUnit unit) {
+        return supplyAsync(supplier).withTimeout(timeout, unit);
+    }
+
+    /**
+     * Run a task on the virtual-thread executor.
+     * @param task The task to run
+     */
+    public RendangFuture<Void> runAsync(Runnable task) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Compute a value on the main thread (or global region in Folia).
+     * @param supplier The computation to run
+     */
+    public <T> RendangFuture<T> supplySync(Supplier<T> supplier) {
+        RendangFuture<T> future = new RendangFuture<>(this);
+        futures.add(future);
+        future.whenComplete((value, error) -> futures.remove(future));
+        runTask(() -> {
+            if (future.isDone()) return;
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancels every task scheduled through this scheduler that has not finished yet,
+     * and every future created by it that is still pending.
+     */
+    public void cancelAll() {
+        for (TrackedTask task : tasks.toArray(new TrackedTask[0])) {
+            task.cancel();
+        }
+        for (RendangFuture<?> future : futures.toArray(new RendangFuture<?>[0])) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Cancels all pending work and stops the virtual-thread executor.
+     * Called by {@code RendangPlugin} when the plugin disables.
+     */
+    public void shutdown() {
+        cancelAll();
+        asyncExecutor.shutdown();
+    }
+
+    /**
+     * @return the number of scheduled tasks that have not finished or been cancelled
+     */
+    public int getPendingTaskCount() {
+        return tasks.size();
+    }
+
+    /**
+     * Gives a task the name it is reported under by the profiler, instead of its call site.
+     * @param name Name shown in the profiler report
+     * @param task The task to run
+     */
+    public static Runnable named(String name, Runnable task) {
+        return new NamedTask(name, task);
+    }
+
+    /**
+     * Starts profiling tasks submitted from now on, replacing any running profiler.
+     * @param tickShare Share of the 50 ms tick (between 0 and 1) above which a sync or region task counts as an overrun
+     * @return the new profiler
+     */
+    public TaskProfiler enableProfiler(double tickShare) {
+        if (tickShare <= 0 || tickShare > 1) throw new IllegalArgumentException("tickShare must be in (0, 1]");
+        TaskProfiler created = new TaskProfiler(plugin.getLogger(), (long) (TICK_NANOS * tickShare));
+        profiler = created;
+        return created;
+    }
+
+    /**
+     * Stops profiling new submissions. Tasks already scheduled keep recording into the returned profiler.
+     * @return the profiler that was running, or null if profiling was disabled
+     */
+    public TaskProfiler disableProfiler() {
+        TaskProfiler previous = profiler;
+        profiler = null;
+        return previous;
+    }
+
+    /**
+     * @return the running profiler, or null if profiling is disabled
+     */
+    public TaskProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Writes the report of the running profiler to a file on the virtual-thread executor.
+     * @param path File to write, parent directories are created
+     * @param limit Maximum number of tasks to include
+     * @return a future completed with the path, or failed with {@link IllegalStateException} if profiling is disabled
+     */
+    public RendangFuture<Path> writeProfilerReport(Path path, int limit) {
+        TaskProfiler current = profiler;
+        if (current == null) {
+            RendangFuture<Path> failed = new RendangFuture<>(this);
+            failed.completeExceptionally(new IllegalStateException("Profiling is disabled"));
+            return failed;
+        }
+        return supplyAsync(() -> {
+            try {
+                if (path.getParent() != null) Files.createDirectories(path.getParent());
+                YamlFiles.writeAtomically(path, current.report(limit).getBytes(StandardCharsets.UTF_8));
+                return path;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Runnable profile(Runnable task, TaskProfiler.Category category) {
+        TaskProfiler current = profiler;
+        return current == null ? task : current.wrap(task, category);
+    }
+
+    private TaskProfiler.Category regionCategory() {
+        return isFolia ? TaskProfiler.Category.REGION : TaskProfiler.Category.SYNC;
+    }
+
+    /**
+     * Folia rejects delays below one tick, while Bukkit treats zero as "next tick".
+     */
+    private static long foliaDelay(long delayTicks) {
+        return Math.max(1, delayTicks);
+    }
+
+    /**
+     * Checks if the current thread owns the entity, so it can be accessed without scheduling.
+     *
+     * @return true on the entity's region thread in Folia, or on the main thread in Paper
+     */
+    public boolean isOwnedByCurrentRegion(Entity entity) {
+        return isFolia ? Bukkit.isOwnedByCurrentRegion(entity) : Bukkit.isPrimaryThread();
+    }
+
+    /**
+     * Checks if the current thread is the one {@link #runTask(Runnable)} schedules on.
+     *
+     * @return true on the global region thread in Folia, or on the main thread in Paper
+     */
+    public boolean isGlobalThread() {
+        return isFolia ? Bukkit.isGlobalTickThread() : Bukkit.isPrimaryThread();
+    }
+
+    /**
+     * @return the plugin tasks are scheduled for
+     */
+    public Plugin getPlugin() {
+        return plugin;
+    }
+
     /**
      * Checks if the plugin is running on a Folia server.
      * This can be useful for implementing Folia-specific optimizations
@@ -0,0 +1,23 @@
+package org.rendang.plugin.core.scheduler;
+
+/**
+ * Handle of a task scheduled through {@link RendangScheduler}, on either Paper or Folia.
+ */
+public interface RendangTask {
+
+    /**
+     * Cancels the task. A one-shot task that has not started will not run, a repeating task
+     * will not run again. Cancelling a finished task has no effect.
+     */
+    void cancel();
+
+    /**
+     * @return true if {@link #cancel()} was called or the task was retired with its entity
+     */
+    boolean isCancelled();
+
+    /**
+     * @return true if a one-shot task has run, or the task was cancelled
+     */
+    boolean isDone();
+}
@@ -0,0 +1,119 @@
+package org.rendang.plugin.core.scheduler;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects tasks submitted from any thread and runs them together from one scheduled task per tick.
+ * <p>
+ * Submissions go into a lock-free queue, so many updates produced in the same tick cost a queue
+ * insert each instead of a separate Bukkit or Folia task. Tasks submitted with a key are coalesced:
+ * only the latest task for a key runs, earlier ones are dropped. Each drain stops once the time
+ * budget is spent and leaves the rest for the next tick, so a backlog is spread over several ticks
+ * instead of causing a lag spike.
+ * </p>
+ * <p>
+ * Instances are created with {@link RendangScheduler#createBatcher(long, TimeUnit)} (global region)
+ * or {@link RendangScheduler#createBatcher(org.bukkit.Location, long, TimeUnit)} (one region on Folia).
+ * The drain task is only scheduled while there is work queued.
+ * </p>
+ */
+public final class TaskBatcher {
+
+    private final Consumer<Runnable> drainScheduler;
+    private final Logger logger;
+    private final long budgetNanos;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<Object, Runnable> latest = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable drain = this::drain;
+    private volatile boolean closed;
+
+    TaskBatcher(Consumer<Runnable> drainScheduler, Logger logger, long budget, TimeUnit unit) {
+        this.drainScheduler = drainScheduler;
+        this.logger = logger;
+        this.budgetNanos = unit.toNanos(budget);
+    }
+
+    /**
+     * Queues a task for the next drain.
+     */
+    public void submit(Runnable task) {
+        Objects.requireNonNull(task, "task");
+        if (closed) return;
+        queue.add(task);
+        scheduleDrain();
+    }
+
+    /**
+     * Queues a task for the next drain, replacing any task for the same key that has not run yet.
+     */
+    public void submit(Object key, Runnable task) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(task, "task");
+        if (closed) return;
+        if (latest.put(key, task) == null) {
+            queue.add(new Keyed(key));
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * @return the number of queued entries, counting each pending key once
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Drops every queued task and rejects further submissions.
+     */
+    public void close() {
+        closed = true;
+        queue.clear();
+        latest.clear();
+    }
+
+    private void scheduleDrain() {
+        if (scheduled.compareAndSet(false, true)) {
+            drainScheduler.accept(drain);
+        }
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + budgetNanos;
+        try {
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                if (task instanceof Keyed keyed) {
+                    task = latest.remove(keyed.key);
+                    if (task == null) continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable throwable) {
+                    logger.log(Level.SEVERE, "Batched task threw an exception", throwable);
+                }
+                if (System.nanoTime() - deadline >= 0) break;
+            }
+        } finally {
+            scheduled.set(false);
+            if (!closed && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    private record Keyed(Object key) implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
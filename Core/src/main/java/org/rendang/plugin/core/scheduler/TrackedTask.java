@@ -0,0 +1,102 @@
+package org.rendang.plugin.core.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * {@link RendangTask} registered with its scheduler until it finishes, so outstanding tasks can be
+ * cancelled together when the plugin disables.
+ * <p>
+ * The handle is created and registered before the task is submitted, and bound to the Bukkit or
+ * Folia task afterwards. A cancel that arrives before the binding is applied when it happens.
+ * </p>
+ */
+final class TrackedTask implements RendangTask {
+
+    private final Set<TrackedTask> registry;
+    private final boolean repeating;
+    private volatile Object handle;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+
+    TrackedTask(Set<TrackedTask> registry, boolean repeating) {
+        this.registry = registry;
+        this.repeating = repeating;
+        registry.add(this);
+    }
+
+    Runnable wrap(Runnable task) {
+        return () -> {
+            if (cancelled) return;
+            try {
+                task.run();
+            } finally {
+                if (!repeating) finish();
+            }
+        };
+    }
+
+    Consumer<ScheduledTask> wrapFolia(Runnable task) {
+        Runnable wrapped = wrap(task);
+        return scheduledTask -> wrapped.run();
+    }
+
+    /**
+     * Runs the retired callback of an entity task and marks the task as cancelled.
+     */
+    Runnable retire(Runnable retired) {
+        return () -> {
+            cancelled = true;
+            finish();
+            if (retired != null) retired.run();
+        };
+    }
+
+    TrackedTask bind(Object handle) {
+        if (handle == null) {
+            // the entity scheduler returns no task when the entity is already retired
+            cancelled = true;
+            finish();
+            return this;
+        }
+        this.handle = handle;
+        if (cancelled) cancelHandle(handle);
+        return this;
+    }
+
+    private void finish() {
+        done = true;
+        registry.remove(this);
+    }
+
+    @Override
+    public void cancel() {
+        // a task that already ran to completion stays done rather than becoming cancelled
+        if (done) return;
+        cancelled = true;
+        finish();
+        Object current = handle;
+        if (current != null) cancelHandle(current);
+    }
+
+    private static void cancelHandle(Object handle) {
+        if (handle instanceof BukkitTask bukkitTask) {
+            bukkitTask.cancel();
+        } else if (handle instanceof ScheduledTask scheduledTask) {
+            scheduledTask.cancel();
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+}
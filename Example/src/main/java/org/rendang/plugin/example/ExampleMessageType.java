@@ -4,7 +4,8 @@ import org.rendang.plugin.core.messages.RendangMessageRecord;
 
 public enum ExampleMessageType implements RendangMessageRecord {
     EXAMPLE_MESSAGE("message.hello", "Hello, <%>!", "player"),
-    CONFIG_RELOADED("message.config-reloaded", "Config reloaded!")
+    CONFIG_RELOADED("message.config-reloaded", "Config reloaded!"),
+    COMMAND_RATE_LIMITED("message.rate-limited", "You are using commands too quickly, please slow down.")
     ;
 
     private final String path;
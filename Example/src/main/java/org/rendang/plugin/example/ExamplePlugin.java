@@ -1,6 +1,7 @@
 package org.rendang.plugin.example;
 
 import org.rendang.plugin.core.RendangPlugin;
+import org.rendang.plugin.core.commands.limit.CommandLimitConfig;
 import org.rendang.plugin.core.config.RendangConfig;
 import org.rendang.plugin.core.messages.RendangMessage;
 import org.rendang.plugin.example.command.ExampleCommand;
@@ -15,6 +16,7 @@ public final class ExamplePlugin extends RendangPlugin<RendangConfig, RendangMes
     public void onEnable() {
         super.onEnable();
         registerCommand(new ExampleCommand(this));
+        getCommandLimiter().setRejectionMessage(sender -> getPluginMessages().parse(sender, ExampleMessageType.COMMAND_RATE_LIMITED));
         
         // Example: Using Folia-compatible scheduler
         // getScheduler().runTask(() -> {
@@ -28,17 +30,17 @@ public final class ExamplePlugin extends RendangPlugin<RendangConfig, RendangMes
 
     @Override
     public void onDisable() {
-
+        super.onDisable();
     }
 
     @Override
     public RendangConfig onCreateConfig() {
-        return RendangConfig.load(this, ExampleConfigType.class);
+        return RendangConfig.load(this, ExampleConfigType.class, CommandLimitConfig.class);
     }
 
     @Override
     public RendangMessage<ExampleMessageType> onCreateMessages() {
-        return RendangMessage.load(messageFile, ExampleMessageType.class);
+        return RendangMessage.load(messageFile, ExampleMessageType.class, getScheduler().getAsyncExecutor(), 16);
     }
 
 }
@@ -1,6 +1,7 @@
 package org.rendang.plugin.example.command;
 
 import org.rendang.plugin.core.commands.RendangCommand;
+import org.rendang.plugin.core.commands.annotation.Arg;
 import org.rendang.plugin.core.commands.annotation.AutoComplete;
 import org.rendang.plugin.core.commands.annotation.CommandExecute;
 import org.rendang.plugin.core.commands.event.CommandEvent;
@@ -30,13 +31,10 @@ public class ExampleCommand implements RendangCommand {
         return true;
     }
 
-    @CommandExecute(command = "hello", usages = "<player>", description = "Hello command")
-    public boolean hello(CommandEvent event) {
+    @CommandExecute(command = "hello", description = "Hello command")
+    public boolean hello(CommandEvent event, @Arg("player") String player) {
         var config = plugin.getPluginMessages();
-        if(event.getArgs().length > 2){
-            return false;
-        }
-        event.getSender().sendMessage(config.parse(ExampleMessageType.EXAMPLE_MESSAGE, event.getArgs()[1]));
+        event.getSender().sendMessage(config.parseComponent(event.getSender(), ExampleMessageType.EXAMPLE_MESSAGE, player));
         return true;
     }
 
@@ -50,9 +48,15 @@ public class ExampleCommand implements RendangCommand {
 
     @CommandExecute(command = "reload", usages = "", description = "Reload command")
     public boolean reload(CommandEvent event) {
-        plugin.reload();
-        var config = plugin.getPluginMessages();
-        event.getSender().sendMessage(config.parse(ExampleMessageType.CONFIG_RELOADED));
+        var sender = event.getSender();
+        plugin.reloadAsync().thenAccept(result -> {
+            if (!result.isSuccess()) {
+                sender.sendMessage("Reload failed: " + result.getError().getMessage());
+                return;
+            }
+            var config = plugin.getPluginMessages();
+            sender.sendMessage(config.parse(sender, ExampleMessageType.CONFIG_RELOADED));
+        });
         return true;
     }
 }
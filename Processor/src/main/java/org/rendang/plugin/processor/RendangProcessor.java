@@ -0,0 +1,392 @@
+package org.rendang.plugin.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates, at compile time, what the Core otherwise resolves by reflection when a plugin enables.
+ * <p>
+ * For every class with {@code @CommandExecute} or {@code @AutoComplete} methods it writes a
+ * {@code DispatchTable} named {@code <Class>$RendangDispatch} whose invokers call the handlers
+ * directly and which lists the handlers with their annotation values and argument types, and for
+ * every class declaring public static {@code RendangConfigRecord} fields a {@code ConfigRegistry}
+ * named {@code <Class>$RendangRecords} listing them. Handler signatures the Core would reject at
+ * registration are reported as compile errors instead.
+ * </p>
+ * <p>
+ * The processor only refers to Core types by name, so it has no dependency on Core. Private
+ * handlers, handlers of private classes and overloads sharing a name and parameter count are not
+ * generated; their class is then registered by reflection as a whole.
+ * </p>
+ */
+@SupportedAnnotationTypes("*")
+public final class RendangProcessor extends AbstractProcessor {
+
+    static final String COMMAND_EXECUTE = "org.rendang.plugin.core.commands.annotation.CommandExecute";
+    static final String AUTO_COMPLETE = "org.rendang.plugin.core.commands.annotation.AutoComplete";
+    static final String ARG = "org.rendang.plugin.core.commands.annotation.Arg";
+    static final String COMMAND_EVENT = "org.rendang.plugin.core.commands.event.CommandEvent";
+    static final String CONFIG_RECORD = "org.rendang.plugin.core.config.RendangConfigRecord";
+    static final String DISPATCH_TABLE = "org.rendang.plugin.core.commands.invoker.DispatchTable";
+    static final String CONFIG_REGISTRY = "org.rendang.plugin.core.config.ConfigRegistry";
+    static final String HANDLER_SPEC = "org.rendang.plugin.core.commands.invoker.HandlerSpec";
+    static final String COMMAND_THREAD = "org.rendang.plugin.core.commands.annotation.CommandThread";
+    static final String DISPATCH_SUFFIX = "$RendangDispatch";
+    static final String RECORDS_SUFFIX = "$RendangRecords";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Map<TypeElement, List<Handler>> handlers = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            String name = annotation.getQualifiedName().toString();
+            boolean command = name.equals(COMMAND_EXECUTE);
+            if (!command && !name.equals(AUTO_COMPLETE)) continue;
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (!(element instanceof ExecutableElement method) || !(method.getEnclosingElement() instanceof TypeElement type)) continue;
+                Handler handler = command ? validateCommand(method) : validateCompletion(method);
+                if (handler != null) {
+                    handlers.computeIfAbsent(type, key -> new ArrayList<>()).add(handler);
+                }
+            }
+        }
+        handlers.forEach(this::writeDispatchTable);
+        TypeElement configRecord = elements().getTypeElement(CONFIG_RECORD);
+        if (configRecord != null) {
+            for (Element root : round.getRootElements()) {
+                if (root instanceof TypeElement type) {
+                    writeRegistries(type, types().erasure(configRecord.asType()));
+                }
+            }
+        }
+        return false;
+    }
+
+    private Handler validateCommand(ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (method.getReturnType().getKind() != TypeKind.BOOLEAN) {
+            return error(method, "CommandExecute method must return boolean");
+        }
+        if (parameters.isEmpty() || !isEvent(parameters.get(0))) {
+            return error(method, "Command method " + method.getSimpleName() + " must take a CommandEvent as its first parameter");
+        }
+        for (int i = 1; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            AnnotationMirror arg = annotation(parameter, ARG);
+            if (arg == null) continue;
+            String name = parameter.getSimpleName().toString();
+            boolean greedy = (Boolean) value(arg, "greedy");
+            if (greedy && (i != parameters.size() - 1 || !isType(parameter.asType(), "java.lang.String"))) {
+                return error(parameter, "Greedy argument " + name + " must be the last parameter and a String");
+            }
+            boolean optional = (Boolean) value(arg, "optional");
+            if (optional && parameter.asType().getKind().isPrimitive() && ((String) value(arg, "defaultValue")).isEmpty()) {
+                return error(parameter, "Optional primitive argument " + name + " needs a default value");
+            }
+            boolean ranged = (Double) value(arg, "min") != Double.NEGATIVE_INFINITY
+                    || (Double) value(arg, "max") != Double.POSITIVE_INFINITY;
+            if (ranged && !isRanged(parameter.asType())) {
+                return error(parameter, "Argument " + name + " has a min or max but is not a number or Duration");
+            }
+        }
+        return new Handler(method, Kind.COMMAND);
+    }
+
+    private Handler validateCompletion(ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.size() != 1 || !isEvent(parameters.get(0))) {
+            return error(method, "Command method " + method.getSimpleName() + " must take a CommandEvent as its only parameter");
+        }
+        TypeMirror returnType = types().erasure(method.getReturnType());
+        if (isType(returnType, "java.util.List")) {
+            return new Handler(method, Kind.COMPLETION);
+        }
+        TypeElement stage = elements().getTypeElement("java.util.concurrent.CompletionStage");
+        if (returnType.getKind() == TypeKind.DECLARED && types().isAssignable(returnType, types().erasure(stage.asType()))) {
+            return new Handler(method, Kind.ASYNC_COMPLETION);
+        }
+        return error(method, "AutoComplete method must return List<String> or CompletableFuture<List<String>>");
+    }
+
+    private void writeDispatchTable(TypeElement type, List<Handler> handlers) {
+        if (!accessible(type)) return;
+        Map<String, Integer> keys = new HashMap<>();
+        for (Handler handler : handlers) {
+            keys.merge(handler.key(), 1, Integer::sum);
+        }
+        String owner = types().erasure(type.asType()).toString();
+        StringBuilder body = new StringBuilder();
+        List<String> specs = new ArrayList<>();
+        for (Kind kind : Kind.values()) {
+            body.append("\n    @Override\n    public ").append(kind.invoker)
+                    .append(' ').append(kind.method).append("(Object context, String key) {\n");
+            StringBuilder cases = new StringBuilder();
+            for (Handler handler : handlers) {
+                ExecutableElement method = handler.method;
+                if (handler.kind != kind) continue;
+                if (method.getModifiers().contains(Modifier.PRIVATE) || keys.get(handler.key()) > 1) {
+                    specs = null;
+                    continue;
+                }
+                if (specs != null) specs.add(spec(handler));
+                boolean isStatic = method.getModifiers().contains(Modifier.STATIC);
+                String target = isStatic ? owner : "target";
+                cases.append("            case \"").append(handler.key()).append("\" -> {\n");
+                if (!isStatic) {
+                    cases.append("                ").append(owner).append(" target = (").append(owner).append(") context;\n");
+                }
+                cases.append("                yield event -> ").append(invocation(handler, target)).append(";\n");
+                cases.append("            }\n");
+            }
+            if (cases.isEmpty()) {
+                body.append("        return null;\n");
+            } else {
+                body.append("        return switch (key) {\n").append(cases)
+                        .append("            default -> null;\n        };\n");
+            }
+            body.append("    }\n");
+        }
+        body.append("\n    @Override\n    public java.util.List<").append(HANDLER_SPEC).append("> handlers() {\n");
+        if (specs == null) {
+            body.append("        return null;\n");
+        } else {
+            body.append("        return java.util.List.of(\n                ").append(String.join(",\n                ", specs)).append(");\n");
+        }
+        body.append("    }\n");
+        write(type, DISPATCH_SUFFIX, DISPATCH_TABLE, body.toString());
+    }
+
+    /**
+     * @return the expression creating the {@code HandlerSpec} of the handler
+     */
+    private String spec(Handler handler) {
+        ExecutableElement method = handler.method;
+        if (handler.kind != Kind.COMMAND) {
+            AnnotationMirror autoComplete = annotation(method, AUTO_COMPLETE);
+            return HANDLER_SPEC + ".completion(" + literal(handler.key()) + ", " + literal(value(autoComplete, "command"))
+                    + ", " + literal(value(autoComplete, "permission")) + ", " + (handler.kind == Kind.ASYNC_COMPLETION)
+                    + ", " + literal(value(autoComplete, "timeoutMillis")) + ")";
+        }
+        AnnotationMirror commandExecute = annotation(method, COMMAND_EXECUTE);
+        List<String> arguments = new ArrayList<>();
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 1; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            AnnotationMirror arg = annotation(parameter, ARG);
+            String name = arg == null || ((String) value(arg, "value")).isEmpty()
+                    ? parameter.getSimpleName().toString() : (String) value(arg, "value");
+            arguments.add("new " + HANDLER_SPEC + ".Argument(" + literal(name) + ", "
+                    + types().erasure(parameter.asType()) + ".class, "
+                    + (arg == null ? "false, \"\", false, java.lang.Double.NEGATIVE_INFINITY, java.lang.Double.POSITIVE_INFINITY"
+                    : literal(value(arg, "optional")) + ", " + literal(value(arg, "defaultValue")) + ", "
+                    + literal(value(arg, "greedy")) + ", " + literal(value(arg, "min")) + ", " + literal(value(arg, "max")))
+                    + ")");
+        }
+        VariableElement thread = (VariableElement) value(commandExecute, "thread");
+        return HANDLER_SPEC + ".command(" + literal(handler.key()) + ", " + literal(value(commandExecute, "command"))
+                + ", " + literal(value(commandExecute, "permission")) + ", " + literal(value(commandExecute, "usages"))
+                + ", " + literal(value(commandExecute, "description")) + ", " + COMMAND_THREAD + "." + thread.getSimpleName()
+                + ", " + literal(value(commandExecute, "maxInFlight"))
+                + ", java.util.List.of(" + String.join(", ", arguments) + "))";
+    }
+
+    /**
+     * @return the Java source of a constant annotation value
+     */
+    private String literal(Object value) {
+        if (value instanceof Double number && number.isInfinite()) {
+            return number > 0 ? "java.lang.Double.POSITIVE_INFINITY" : "java.lang.Double.NEGATIVE_INFINITY";
+        }
+        return elements().getConstantExpression(value);
+    }
+
+    private String invocation(Handler handler, String target) {
+        ExecutableElement method = handler.method;
+        String call = target + "." + method.getSimpleName();
+        return switch (handler.kind) {
+            case COMMAND -> {
+                List<? extends VariableElement> parameters = method.getParameters();
+                if (parameters.size() == 1) yield call + "(event)";
+                StringBuilder arguments = new StringBuilder("{\n                    Object[] arguments = event.getArguments();\n");
+                arguments.append("                    return ").append(call).append("(event");
+                for (int i = 1; i < parameters.size(); i++) {
+                    arguments.append(", (").append(castType(parameters.get(i).asType())).append(") arguments[").append(i - 1).append(']');
+                }
+                yield arguments.append(");\n                }").toString();
+            }
+            case COMPLETION -> "(java.util.List<String>) " + call + "(event)";
+            case ASYNC_COMPLETION -> "(java.util.concurrent.CompletionStage<java.util.List<String>>) (java.util.concurrent.CompletionStage<?>) "
+                    + call + "(event)";
+        };
+    }
+
+    private void writeRegistries(TypeElement type, TypeMirror configRecord) {
+        List<String> records = new ArrayList<>();
+        for (Element element : type.getEnclosedElements()) {
+            if (element instanceof TypeElement nested) {
+                writeRegistries(nested, configRecord);
+            } else if (element.getKind() == ElementKind.FIELD
+                    && element.getModifiers().containsAll(Set.of(Modifier.PUBLIC, Modifier.STATIC))
+                    && types().isAssignable(types().erasure(element.asType()), configRecord)) {
+                records.add(types().erasure(type.asType()) + "." + element.getSimpleName());
+            }
+        }
+        if (records.isEmpty() || !accessible(type)) return;
+        // a field may still be null while its class initializes, so it is skipped like the reflective scan does
+        StringBuilder body = new StringBuilder("\n    @Override\n    public java.util.List<" + CONFIG_RECORD + "<?>> records() {\n"
+                + "        java.util.List<" + CONFIG_RECORD + "<?>> records = new java.util.ArrayList<>();\n");
+        for (String record : records) {
+            body.append("        if (").append(record).append(" != null) records.add(").append(record).append(");\n");
+        }
+        body.append("        return records;\n    }\n");
+        write(type, RECORDS_SUFFIX, CONFIG_REGISTRY, body.toString());
+    }
+
+    private void write(TypeElement type, String suffix, String implemented, String body) {
+        String packageName = elements().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements().getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + suffix;
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        if (!generated.add(qualifiedName)) return;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+            writer.write("@javax.annotation.processing.Generated(\"" + RendangProcessor.class.getName() + "\")\n");
+            writer.write("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            writer.write("public final class " + simpleName + " implements " + implemented + " {\n");
+            writer.write(body);
+            writer.write("}\n");
+        } catch (IOException e) {
+            messager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + qualifiedName + ": " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * @return whether generated code in the same package can refer to the type
+     */
+    private static boolean accessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement current) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) return false;
+            if (current.getNestingKind() != NestingKind.TOP_LEVEL && current.getNestingKind() != NestingKind.MEMBER) return false;
+            element = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private String castType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return types().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return types().erasure(type).toString();
+    }
+
+    private boolean isEvent(VariableElement parameter) {
+        return isType(parameter.asType(), COMMAND_EVENT);
+    }
+
+    private boolean isType(TypeMirror type, String qualifiedName) {
+        return type.getKind() == TypeKind.DECLARED
+                && types().erasure(type).toString().equals(qualifiedName);
+    }
+
+    /**
+     * @return whether the type is a number or a {@code Duration}, the only types a min or max applies to
+     */
+    private boolean isRanged(TypeMirror type) {
+        TypeKind kind = type.getKind();
+        if (kind.isPrimitive()) return kind != TypeKind.BOOLEAN && kind != TypeKind.CHAR;
+        if (kind != TypeKind.DECLARED) return false;
+        return isType(type, "java.time.Duration")
+                || types().isAssignable(type, elements().getTypeElement("java.lang.Number").asType());
+    }
+
+    private AnnotationMirror annotation(Element element, String qualifiedName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(qualifiedName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Object value(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalArgumentException("Annotation " + mirror + " has no value " + name);
+    }
+
+    private Handler error(Element element, String message) {
+        messager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return null;
+    }
+
+    private Elements elements() {
+        return processingEnv.getElementUtils();
+    }
+
+    private Types types() {
+        return processingEnv.getTypeUtils();
+    }
+
+    private Messager messager() {
+        return processingEnv.getMessager();
+    }
+
+    private enum Kind {
+        COMMAND("org.rendang.plugin.core.commands.invoker.CommandInvoker", "command"),
+        COMPLETION("org.rendang.plugin.core.commands.invoker.CompletionInvoker", "completion"),
+        ASYNC_COMPLETION("org.rendang.plugin.core.commands.invoker.AsyncCompletionInvoker", "asyncCompletion");
+
+        final String invoker;
+        final String method;
+
+        Kind(String invoker, String method) {
+            this.invoker = invoker;
+            this.method = method;
+        }
+    }
+
+    private record Handler(ExecutableElement method, Kind kind) {
+        String key() {
+            return method.getSimpleName() + "/" + method.getParameters().size();
+        }
+    }
+}